@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.benchmark;
+
+import java.util.Date;
+import java.util.List;
+
+
+/**
+ * The target of the field-level conversions, see <code>ConversionBean-conversion.properties</code>.
+ */
+public class ConversionBean {
+
+    public enum Status {
+        ACTIVE, SUSPENDED, CLOSED
+    }
+
+    private int count;
+    private Date created;
+    private Status status;
+    private List numbers;
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public List getNumbers() {
+        return numbers;
+    }
+
+    public void setNumbers(List numbers) {
+        this.numbers = numbers;
+    }
+}
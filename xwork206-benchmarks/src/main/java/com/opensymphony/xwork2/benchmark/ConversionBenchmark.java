@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The cost of single conversions through {@link com.opensymphony.xwork2.util.XWorkConverter#convertValue}, as
+ * parameters are converted when they are set on an action.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    private static final String[] NUMBERS = {"1", "22", "333", "4444", "55555", "666666", "7777777", "88888888"};
+
+    @Benchmark
+    public Object stringToInt(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "12345", int.class);
+    }
+
+    @Benchmark
+    public Object stringToLong(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "1234567890123", Long.class);
+    }
+
+    @Benchmark
+    public Object stringToDouble(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "1234.5", double.class);
+    }
+
+    /**
+     * A number with a grouping separator, which only number wrappers accept, parsed with the locale's format.
+     */
+    @Benchmark
+    public Object groupedStringToDouble(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "1,234.5", Double.class);
+    }
+
+    @Benchmark
+    public Object stringToBoolean(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "true", boolean.class);
+    }
+
+    @Benchmark
+    public Object stringToDate(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "12/31/07", Date.class);
+    }
+
+    @Benchmark
+    public Object stringToEnum(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "SUSPENDED", ConversionBean.Status.class);
+    }
+
+    @Benchmark
+    public Object stringsToIntArray(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, NUMBERS, int[].class);
+    }
+
+    @Benchmark
+    public Object stringsToList(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, NUMBERS, List.class);
+    }
+
+    /**
+     * An enum property with a converter of its own in <code>ConversionBean-conversion.properties</code>.
+     */
+    @Benchmark
+    public Object fieldConverter(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, thread.bean, null, "status", "CLOSED",
+                ConversionBean.Status.class);
+    }
+
+    /**
+     * A list property whose elements are typed in <code>ConversionBean-conversion.properties</code>.
+     */
+    @Benchmark
+    public Object fieldElementType(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, thread.bean, null, "numbers", NUMBERS, List.class);
+    }
+
+    /**
+     * A property without a converter of its own, which still looks for one before using the default.
+     */
+    @Benchmark
+    public Object fieldWithoutConverter(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, thread.bean, null, "count", "42", int.class);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.benchmark;
+
+import com.opensymphony.xwork2.ActionContext;
+import com.opensymphony.xwork2.ObjectFactory;
+import com.opensymphony.xwork2.util.EnumTypeConverter;
+import com.opensymphony.xwork2.util.FileManager;
+import com.opensymphony.xwork2.util.XWorkConverter;
+import ognl.Ognl;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * The converter shared by all benchmark threads, set up the way a configured application has it.
+ */
+@State(Scope.Benchmark)
+public class ConversionState {
+
+    ObjectFactory objectFactory;
+    XWorkConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // configuration files are only reloaded in development mode, where every conversion checks them
+        FileManager.setReloadingConfigs(false);
+        objectFactory = new ObjectFactory();
+        ObjectFactory.setObjectFactory(objectFactory);
+        XWorkConverter.resetInstance();
+        converter = XWorkConverter.getInstance();
+        converter.registerConverter(ConversionBean.Status.class.getName(), new EnumTypeConverter());
+    }
+
+    /**
+     * The OGNL context of a single thread, as every request has its own.
+     */
+    @State(Scope.Thread)
+    public static class ThreadContext {
+
+        Map context;
+        ConversionBean bean;
+
+        @Setup(Level.Trial)
+        public void setUp(ConversionState state) {
+            // the object factory is looked up per thread
+            ObjectFactory.setObjectFactory(state.objectFactory);
+            context = Ognl.createDefaultContext(null);
+            Ognl.setTypeConverter(context, state.converter);
+            context.put(ActionContext.LOCALE, Locale.US);
+            bean = new ConversionBean();
+        }
+    }
+}
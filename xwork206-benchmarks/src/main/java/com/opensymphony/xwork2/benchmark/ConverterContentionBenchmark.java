@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Conversions of many threads at once against the one converter and the one target class, so that any lock
+ * taken on the way to a converter shows up as lost throughput. Run with <code>-t</code> to try other thread
+ * counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ConverterContentionBenchmark {
+
+    /**
+     * Finds the field-level converter of the target class.
+     */
+    @Benchmark
+    public Object fieldConverter(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, thread.bean, null, "status", "ACTIVE",
+                ConversionBean.Status.class);
+    }
+
+    /**
+     * Finds that the target class has no converter for the property, then looks up the global one.
+     */
+    @Benchmark
+    public Object fieldWithoutConverter(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, thread.bean, null, "count", "42", int.class);
+    }
+
+    /**
+     * Looks up the global converter registered for a class.
+     */
+    @Benchmark
+    public Object globalConverter(ConversionState state, ConversionState.ThreadContext thread) {
+        return state.converter.convertValue(thread.context, "SUSPENDED", ConversionBean.Status.class);
+    }
+}
@@ -4,13 +4,14 @@
  */
 package com.opensymphony.xwork2;
 
+import com.opensymphony.xwork2.util.ConversionErrors;
 import com.opensymphony.xwork2.util.ValueStack;
 import com.opensymphony.xwork2.util.ValueStackFactory;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 
 /**
@@ -24,12 +25,23 @@ import java.util.Map;
  * <ul><code>ActionContext context = ActionContext.getContext();</code></ul>
  * <p/>
  * Finally, because of the thread local usage you don't need to worry about making your actions thread safe.
+ * <p/>
+ * A thread only gets a context of its own, with a new value stack, when it asks for one without having been
+ * given one. Once a thread's context has been set to <tt>null</tt>, {@link #getContext()} returns <tt>null</tt>
+ * until another context is set. Work handed to other threads can take the context along with {@link #wrap(Runnable)},
+ * {@link #wrap(Callable)} or {@link #call(ActionContext, Callable)}.
  *
  * @author Patrick Lightbody
  * @author Bill Lynch (docs)
  */
 public class ActionContext implements Serializable {
-    static ThreadLocal actionContext = new ActionContextThreadLocal();
+    static ThreadLocal actionContext = new ThreadLocal();
+
+    /**
+     * Held by the thread local of a thread whose context was set to <tt>null</tt>, so that no new context is
+     * created for it
+     */
+    private static final Object CLEARED = new Object();
 
     /**
      * Constant that indicates the action is running under a "development mode".
@@ -139,7 +151,7 @@ public class ActionContext implements Serializable {
      * @param context the action context.
      */
     public static void setContext(ActionContext context) {
-        actionContext.set(context);
+        actionContext.set(context == null ? CLEARED : context);
     }
 
     /**
@@ -148,15 +160,101 @@ public class ActionContext implements Serializable {
      * @return the ActionContext for the current thread, is never <tt>null</tt>.
      */
     public static ActionContext getContext() {
-        ActionContext context = (ActionContext) actionContext.get();
+        Object context = actionContext.get();
 
         if (context == null) {
             ValueStack vs = ValueStackFactory.getFactory().createValueStack();
             context = new ActionContext(vs.getContext());
-            setContext(context);
+            setContext((ActionContext) context);
         }
 
-        return context;
+        return context == CLEARED ? null : (ActionContext) context;
+    }
+
+    /**
+     * Returns what the current thread holds in place of its context, without creating a context for it. The
+     * value is only meant to be handed back to {@link #setContextState(Object)}.
+     */
+    static Object getContextState() {
+        return actionContext.get();
+    }
+
+    /**
+     * Puts back what {@link #getContextState()} returned, including a thread having no context yet.
+     */
+    static void setContextState(Object state) {
+        if (state == null) {
+            actionContext.remove();
+        } else {
+            actionContext.set(state);
+        }
+    }
+
+    /**
+     * Returns the context of the current thread without creating one, or <tt>null</tt> if it has none.
+     */
+    private static ActionContext peekContext() {
+        Object context = actionContext.get();
+        return context == CLEARED ? null : (ActionContext) context;
+    }
+
+    /**
+     * Calls the callable with the given action context as the context of the current thread, and restores
+     * the context the thread had afterwards.
+     *
+     * @param context  the action context to call the callable in.
+     * @param callable the callable.
+     * @return the value returned by the callable.
+     * @throws Exception if the callable throws one.
+     */
+    public static <T> T call(ActionContext context, Callable<T> callable) throws Exception {
+        Object previous = getContextState();
+        setContext(context);
+        try {
+            return callable.call();
+        } finally {
+            setContextState(previous);
+        }
+    }
+
+    /**
+     * Wraps the callable so that it is called in the action context of the current thread, whichever
+     * thread it is called on. If the current thread has no action context, none is created for it and the
+     * callable is called without one.
+     *
+     * @param callable the callable.
+     * @return the wrapping callable.
+     */
+    public static <T> Callable<T> wrap(final Callable<T> callable) {
+        final ActionContext context = peekContext();
+        return new Callable<T>() {
+            public T call() throws Exception {
+                return ActionContext.call(context, callable);
+            }
+        };
+    }
+
+    /**
+     * Wraps the runnable so that it is run in the action context of the current thread, whichever thread it
+     * is run on. If the current thread has no action context, none is created for it and the runnable is run
+     * without one.
+     *
+     * @param runnable the runnable.
+     * @return the wrapping runnable.
+     */
+    public static Runnable wrap(final Runnable runnable) {
+        final ActionContext context = peekContext();
+        return new Runnable() {
+            public void run() {
+                Object previous = getContextState();
+                setContext(context);
+                try {
+                    runnable.run();
+                } finally {
+                    setContextState(previous);
+                }
+            }
+        };
     }
 
     /**
@@ -196,7 +294,7 @@ public class ActionContext implements Serializable {
         Map errors = (Map) get(CONVERSION_ERRORS);
 
         if (errors == null) {
-            errors = new HashMap();
+            errors = new ConversionErrors();
             setConversionErrors(errors);
         }
 
@@ -322,13 +420,4 @@ public class ActionContext implements Serializable {
     public void put(Object key, Object value) {
         context.put(key, value);
     }
-
-
-    private static class ActionContextThreadLocal extends ThreadLocal {
-        protected Object initialValue() {
-            ValueStack vs = ValueStackFactory.getFactory().createValueStack();
-
-            return new ActionContext(vs.getContext());
-        }
-    }
 }
@@ -9,6 +9,7 @@ import com.opensymphony.xwork2.config.entities.ActionConfig;
 import com.opensymphony.xwork2.config.entities.InterceptorMapping;
 import com.opensymphony.xwork2.config.entities.ResultConfig;
 import com.opensymphony.xwork2.interceptor.PreResultListener;
+import com.opensymphony.xwork2.util.NoArgMethodCache;
 import com.opensymphony.xwork2.util.ValueStack;
 import com.opensymphony.xwork2.util.ValueStackFactory;
 import com.opensymphony.xwork2.util.profiling.UtilTimerStack;
@@ -23,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 
 /**
@@ -179,15 +181,14 @@ public class DefaultActionInvocation implements ActionInvocation {
 
         ResultConfig resultConfig = null;
 
-        synchronized (config) {
-            try {
-                resultConfig = (ResultConfig) results.get(resultCode);
-            } catch (NullPointerException e) {
-            }
-            if (resultConfig == null) {
-                // If no result is found for the given resultCode, try to get a wildcard '*' match.
-                resultConfig = (ResultConfig) results.get("*");
-            }
+        // the results are only read once the configuration is built, so no lock is needed
+        try {
+            resultConfig = (ResultConfig) results.get(resultCode);
+        } catch (NullPointerException e) {
+        }
+        if (resultConfig == null) {
+            // If no result is found for the given resultCode, try to get a wildcard '*' match.
+            resultConfig = (ResultConfig) results.get("*");
         }
 
         if (resultConfig != null) {
@@ -217,14 +218,15 @@ public class DefaultActionInvocation implements ActionInvocation {
     		}
 
     		if (interceptors.hasNext()) {
-    			final InterceptorMapping interceptor = (InterceptorMapping) interceptors.next();
-    			UtilTimerStack.profile("interceptor: "+interceptor.getName(), 
-    					new UtilTimerStack.ProfilingBlock<String>() {
-							public String doProfiling() throws Exception {
-				    			resultCode = interceptor.getInterceptor().intercept(DefaultActionInvocation.this);
-				    			return null;
-							}
-    			});
+    			InterceptorMapping interceptor = (InterceptorMapping) interceptors.next();
+    			String interceptorProfileKey = interceptor.getProfileKey();
+    			try {
+    				UtilTimerStack.push(interceptorProfileKey);
+    				resultCode = interceptor.getInterceptor().intercept(this);
+    			}
+    			finally {
+    				UtilTimerStack.pop(interceptorProfileKey);
+    			}
     		} else {
     			resultCode = invokeActionOnly();
     		}
@@ -371,9 +373,8 @@ public class DefaultActionInvocation implements ActionInvocation {
         invocationContext = new ActionContext(contextMap);
         invocationContext.setName(proxy.getActionName());
 
-        // get a new List so we don't get problems with the iterator if someone changes the list
-        List interceptorList = new ArrayList(proxy.getConfig().getInterceptors());
-        interceptors = interceptorList.iterator();
+        // walk the array the invocations of the action share rather than copying the list for every one
+        interceptors = new InterceptorIterator(proxy.getConfig().getInterceptorChain());
     }
 
     protected String invokeAction(Object action, ActionConfig actionConfig) throws Exception {
@@ -387,29 +388,24 @@ public class DefaultActionInvocation implements ActionInvocation {
         try {
             UtilTimerStack.push(timerKey);
             
-            Method method;
-            try {
-                method = getAction().getClass().getMethod(methodName, new Class[0]);
-            } catch (NoSuchMethodException e) {
+            Class actionClass = getAction().getClass();
+            Method method = NoArgMethodCache.getMethod(actionClass, methodName);
+            if (method == null) {
                 // hmm -- OK, try doXxx instead
-                try {
-                    String altMethodName = "do" + methodName.substring(0, 1).toUpperCase() + methodName.substring(1);
-                    method = getAction().getClass().getMethod(altMethodName, new Class[0]);
-                } catch (NoSuchMethodException e1) {
-                    // throw the original one
-                    throw e;
+                String altMethodName = "do" + methodName.substring(0, 1).toUpperCase() + methodName.substring(1);
+                method = NoArgMethodCache.getMethod(actionClass, altMethodName);
+                if (method == null) {
+                    throw new IllegalArgumentException("The " + methodName + "() is not defined in action " + actionClass + "");
                 }
             }
 
-            Object methodResult = method.invoke(action, new Object[0]);
+            Object methodResult = method.invoke(action, NoArgMethodCache.NO_ARGS);
             if (methodResult instanceof Result) {
             	this.result = (Result) methodResult;
             	return null;
             } else {
             	return (String) methodResult;
             }
-        } catch (NoSuchMethodException e) {
-            throw new IllegalArgumentException("The " + methodName + "() is not defined in action " + getAction().getClass() + "");
         } catch (InvocationTargetException e) {
             // We try to return the source exception.
             Throwable t = e.getTargetException();
@@ -429,7 +425,37 @@ public class DefaultActionInvocation implements ActionInvocation {
             UtilTimerStack.pop(timerKey);
         }
     }
-    
-    
-    
+
+    /**
+     * Iterates over the interceptor chain of an action. The chain is shared, so removing an interceptor only
+     * takes it out of this invocation, which has already passed it anyway.
+     */
+    private static class InterceptorIterator implements Iterator {
+        private final InterceptorMapping[] chain;
+        private int index;
+        private boolean removable;
+
+        InterceptorIterator(InterceptorMapping[] chain) {
+            this.chain = chain;
+        }
+
+        public boolean hasNext() {
+            return index < chain.length;
+        }
+
+        public Object next() {
+            if (index >= chain.length) {
+                throw new NoSuchElementException();
+            }
+            removable = true;
+            return chain[index++];
+        }
+
+        public void remove() {
+            if (!removable) {
+                throw new IllegalStateException();
+            }
+            removable = false;
+        }
+    }
 }
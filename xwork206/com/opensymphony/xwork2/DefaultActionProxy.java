@@ -18,6 +18,10 @@ import org.apache.commons.logging.LogFactory;
 import java.io.Serializable;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 
 /**
@@ -121,7 +125,8 @@ public class DefaultActionProxy implements ActionProxy, Serializable {
     }
 
     public String execute() throws Exception {
-        ActionContext nestedContext = ActionContext.getContext();
+        // read without ActionContext.getContext(), which would build a context just to be put back
+        Object nestedContext = ActionContext.getContextState();
         ActionContext.setContext(invocation.getInvocationContext());
 
         String retCode = null;
@@ -133,7 +138,7 @@ public class DefaultActionProxy implements ActionProxy, Serializable {
             retCode = invocation.invoke();
         } finally {
             if (cleanupContext) {
-                ActionContext.setContext(nestedContext);
+                ActionContext.setContextState(nestedContext);
             }
             UtilTimerStack.pop(profileKey);
         }
@@ -141,6 +146,32 @@ public class DefaultActionProxy implements ActionProxy, Serializable {
         return retCode;
     }
 
+    /**
+     * Hands the execution of the action over to the given executor, so that the calling thread is free to go
+     * on as soon as the execution is scheduled. The invocation context is set on the executing thread for the
+     * duration of the execution, and whatever context the thread had is restored afterwards.
+     * <p/>
+     * This only moves the work to another thread, it does not make it non-blocking: the action, its
+     * interceptors and its result run just as in {@link #execute()}, and an executor thread is taken for as
+     * long as they wait on anything.
+     *
+     * @param executor the executor to run the action with
+     * @return the result code of the action, or the exception it was executed with
+     */
+    public Future<String> executeAsync(Executor executor) {
+        FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+            public String call() throws Exception {
+                return ActionContext.call(invocation.getInvocationContext(), new Callable<String>() {
+                    public String call() throws Exception {
+                        return execute();
+                    }
+                });
+            }
+        });
+        executor.execute(task);
+        return task;
+    }
+
 
     public String getMethod() {
         return method;
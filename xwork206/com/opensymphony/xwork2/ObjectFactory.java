@@ -13,6 +13,7 @@ import com.opensymphony.xwork2.inject.Container;
 import com.opensymphony.xwork2.inject.Inject;
 import com.opensymphony.xwork2.interceptor.Interceptor;
 import com.opensymphony.xwork2.util.OgnlUtil;
+import com.opensymphony.xwork2.util.ParameterBindings;
 import com.opensymphony.xwork2.validator.Validator;
 
 import java.io.IOException;
@@ -208,18 +209,25 @@ public class ObjectFactory implements Serializable {
 
     /**
      * Build a Result using the type in the ResultConfig and set the parameters in the ResultConfig.
+     * The parameters are resolved against the class of the result once per ResultConfig. A {@link ShareableResult}
+     * is only built once per ResultConfig and then returned every time.
      *
      * @param resultConfig the ResultConfig found for the action with the result code returned
      * @param extraContext a Map of extra context which uses the same keys as the {@link com.opensymphony.xwork2.ActionContext}
      */
     public Result buildResult(ResultConfig resultConfig, Map extraContext) throws Exception {
+        Result result = resultConfig.getSharedResult();
+        if (result != null) {
+            return result;
+        }
+
         String resultClassName = resultConfig.getClassName();
-        Result result = null;
 
         if (resultClassName != null) {
             result = (Result) buildBean(resultClassName, extraContext);
+            ParameterBindings bindings = resultConfig.getParameterBindings(result.getClass());
             try {
-            	OgnlUtil.setProperties(resultConfig.getParams(), result, extraContext, true);
+            	bindings.apply(result, extraContext);
             } catch (XWorkException ex) {
             	Throwable reason = ex.getCause();
             	if (reason instanceof OgnlException)
@@ -234,6 +242,9 @@ public class ObjectFactory implements Serializable {
             		throw ex;
             	}
             }
+            if (result instanceof ShareableResult) {
+                resultConfig.setSharedResult(result, bindings);
+            }
         }
 
         return result;
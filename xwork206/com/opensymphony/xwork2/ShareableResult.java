@@ -0,0 +1,15 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+
+package com.opensymphony.xwork2;
+
+/**
+ * Marker interface to indicate a {@link Result} keeps no state between executions, so that the instance built
+ * for a result configuration can be used by every invocation. Its parameters are only set when it is built.
+ *
+ * @see ObjectFactory#buildResult(com.opensymphony.xwork2.config.entities.ResultConfig, java.util.Map)
+ */
+public interface ShareableResult extends Result {
+}
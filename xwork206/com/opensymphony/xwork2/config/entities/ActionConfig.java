@@ -29,6 +29,7 @@ import java.util.*;
 public class ActionConfig extends Located implements InterceptorListHolder, Parameterizable, Serializable {
 
     protected List<InterceptorMapping> interceptors;
+    private transient volatile InterceptorMapping[] interceptorChain;
     protected Map<String, Object> params;
     protected Map<String, ResultConfig> results;
     protected List<ExceptionMappingConfig> exceptionMappings;
@@ -97,6 +98,24 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
         return interceptors;
     }
 
+    /**
+     * Returns the interceptors as an array shared by all invocations of the action. The array is taken from
+     * {@link #getInterceptors()} when first asked for and again after interceptors are added through
+     * {@link #addInterceptor(InterceptorMapping)} or {@link #addInterceptors(List)}, and must not be modified.
+     * <p/>
+     * The list is meant to be frozen once the configuration is built: changes made to it directly are only
+     * noticed if they change its size.
+     */
+    public InterceptorMapping[] getInterceptorChain() {
+        InterceptorMapping[] chain = interceptorChain;
+        List<InterceptorMapping> list = getInterceptors();
+        if (chain == null || chain.length != list.size()) {
+            chain = list.toArray(new InterceptorMapping[list.size()]);
+            interceptorChain = chain;
+        }
+        return chain;
+    }
+
     public void setMethodName(String methodName) {
         this.methodName = methodName;
     }
@@ -158,10 +177,12 @@ public class ActionConfig extends Located implements InterceptorListHolder, Para
 
     public void addInterceptor(InterceptorMapping interceptor) {
         getInterceptors().add(interceptor);
+        interceptorChain = null;
     }
 
     public void addInterceptors(List<InterceptorMapping> interceptors) {
         getInterceptors().addAll(interceptors);
+        interceptorChain = null;
     }
 
     public void addParam(String name, Object value) {
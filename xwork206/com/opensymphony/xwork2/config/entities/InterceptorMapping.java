@@ -19,6 +19,7 @@ public class InterceptorMapping implements Serializable {
 
     private String name;
     private Interceptor interceptor;
+    private transient String profileKey;
 
     public InterceptorMapping() {
     }
@@ -34,6 +35,19 @@ public class InterceptorMapping implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        this.profileKey = null;
+    }
+
+    /**
+     * @return the key the interceptor is profiled under
+     */
+    public String getProfileKey() {
+        String key = profileKey;
+        if (key == null) {
+            key = "interceptor: " + name;
+            profileKey = key;
+        }
+        return key;
     }
 
     public Interceptor getInterceptor() {
@@ -4,6 +4,8 @@
  */
 package com.opensymphony.xwork2.config.entities;
 
+import com.opensymphony.xwork2.Result;
+import com.opensymphony.xwork2.util.ParameterBindings;
 import com.opensymphony.xwork2.util.location.Located;
 
 import java.io.Serializable;
@@ -23,6 +25,8 @@ public class ResultConfig extends Located implements Parameterizable, Serializab
     private Map params;
     private String className;
     private String name;
+    private transient volatile Result sharedResult;
+    private transient volatile ParameterBindings parameterBindings;
 
 
     public ResultConfig() {
@@ -40,8 +44,9 @@ public class ResultConfig extends Located implements Parameterizable, Serializab
     }
 
 
-    public void setClassName(String className) {
+    public synchronized void setClassName(String className) {
         this.className = className;
+        discardBuiltState();
     }
 
     public String getClassName() {
@@ -56,10 +61,17 @@ public class ResultConfig extends Located implements Parameterizable, Serializab
         return name;
     }
 
-    public void setParams(Map params) {
+    public synchronized void setParams(Map params) {
         this.params = params;
+        discardBuiltState();
     }
 
+    /**
+     * Returns the parameters of the result. They are meant to be frozen once the configuration is built: the
+     * {@link #getParameterBindings(Class) parameter bindings} and a {@link com.opensymphony.xwork2.ShareableResult}
+     * built before they are changed through this map keep the old values, as only {@link #setParams(Map)} and
+     * {@link #addParam(String, Object)} discard them.
+     */
     public Map getParams() {
         if (params == null) {
             params = new LinkedHashMap();
@@ -68,8 +80,57 @@ public class ResultConfig extends Located implements Parameterizable, Serializab
         return params;
     }
 
-    public void addParam(String name, Object value) {
+    public synchronized void addParam(String name, Object value) {
         getParams().put(name, value);
+        discardBuiltState();
+    }
+
+    /**
+     * Returns the parameters resolved against the class of the result they are set on. They are resolved
+     * again for another class, and after the class name or the parameters are set.
+     *
+     * @param resultClass the class of the result built for this configuration
+     */
+    public ParameterBindings getParameterBindings(Class resultClass) {
+        ParameterBindings bindings = parameterBindings;
+        if (bindings == null || !bindings.isFor(resultClass)) {
+            // resolved under the lock the setters hold, so the bindings never outlive the parameters they came from
+            synchronized (this) {
+                bindings = parameterBindings;
+                if (bindings == null || !bindings.isFor(resultClass)) {
+                    bindings = ParameterBindings.resolve(resultClass, getParams());
+                    parameterBindings = bindings;
+                }
+            }
+        }
+        return bindings;
+    }
+
+    /**
+     * @return the {@link com.opensymphony.xwork2.ShareableResult} built for this configuration, or <tt>null</tt>
+     *         if none has been built yet
+     */
+    public Result getSharedResult() {
+        return sharedResult;
+    }
+
+    /**
+     * Keeps a {@link com.opensymphony.xwork2.ShareableResult} built for this configuration, to be used by every
+     * invocation until the class name or the parameters are set again. It is not kept if they have been set
+     * since the bindings its parameters were set with were resolved.
+     *
+     * @param sharedResult the result
+     * @param bindings     the bindings returned by {@link #getParameterBindings(Class)} for the result
+     */
+    public synchronized void setSharedResult(Result sharedResult, ParameterBindings bindings) {
+        if (bindings == parameterBindings) {
+            this.sharedResult = sharedResult;
+        }
+    }
+
+    private void discardBuiltState() {
+        sharedResult = null;
+        parameterBindings = null;
     }
 
     public boolean equals(Object o) {
@@ -15,6 +15,8 @@ import com.opensymphony.xwork2.inject.Container;
 import com.opensymphony.xwork2.inject.ContainerBuilder;
 import com.opensymphony.xwork2.inject.Context;
 import com.opensymphony.xwork2.inject.Factory;
+import com.opensymphony.xwork2.util.LocalizedTextUtil;
+import com.opensymphony.xwork2.util.NoArgMethodCache;
 import com.opensymphony.xwork2.util.location.LocatableProperties;
 
 import org.apache.commons.logging.Log;
@@ -107,6 +109,8 @@ public class DefaultConfiguration implements Configuration {
     public void destroy() {
         packageContexts.clear();
         loadedFileNames.clear();
+        LocalizedTextUtil.clearBundleCaches();
+        NoArgMethodCache.clear();
     }
 
     public void rebuildRuntimeConfiguration() {
@@ -122,6 +126,8 @@ public class DefaultConfiguration implements Configuration {
     public synchronized void reload(List<ConfigurationProvider> providers) throws ConfigurationException {
         packageContexts.clear();
         loadedFileNames.clear();
+        LocalizedTextUtil.clearBundleCaches();
+        NoArgMethodCache.clear();
 
         ContainerProperties props = new ContainerProperties();
         ContainerBuilder builder = new ContainerBuilder();
@@ -153,11 +159,27 @@ public class DefaultConfiguration implements Configuration {
             }
     
             rebuildRuntimeConfiguration();
+            preloadBundles();
         } finally {
             ObjectFactory.setObjectFactory(null);
         }
     }
 
+    /**
+     * Loads the resource bundles of the configured actions ahead of the first request.
+     *
+     * @see LocalizedTextUtil#preloadBundles(Collection)
+     */
+    protected void preloadBundles() {
+        Set<String> classNames = new LinkedHashSet<String>();
+        for (Object configs : runtimeConfiguration.getActionConfigs().values()) {
+            for (Object config : ((Map) configs).values()) {
+                classNames.add(((ActionConfig) config).getClassName());
+            }
+        }
+        LocalizedTextUtil.preloadBundles(classNames);
+    }
+
     public void removePackageConfig(String name) {
         PackageConfig toBeRemoved = packageContexts.get(name);
 
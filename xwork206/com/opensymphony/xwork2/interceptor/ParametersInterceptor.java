@@ -10,6 +10,7 @@ import com.opensymphony.xwork2.ValidationAware;
 import com.opensymphony.xwork2.inject.Inject;
 import com.opensymphony.xwork2.util.*;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -17,8 +18,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
@@ -120,6 +119,24 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
 
     private String acceptedParamNames = "[\\p{Graph}&&[^,#:=]]*";
     private Pattern acceptedPattern = Pattern.compile(acceptedParamNames);
+    private volatile PropertyNameFilter nameFilter;
+
+    /**
+     * Sets of names longer than this, summing the lengths of the names, are ordered on every request
+     * rather than cached
+     */
+    private static final int MAX_CACHED_NAMES_LENGTH = 10000;
+
+    /**
+     * Parameter names in the order they are set, for every set of names seen so far. The names come from
+     * the request, so every entry weighs the summed length of its names.
+     */
+    private final BoundedCache<ParameterNames, Object[]> orderedNames =
+            new BoundedCache<ParameterNames, Object[]>(1000, 100L * MAX_CACHED_NAMES_LENGTH) {
+                protected int weigh(ParameterNames key, Object[] names) {
+                    return getLength(names);
+                }
+            };
 
     @Inject(value = "devMode", required = false)
     public static void setDevMode(String mode) {
@@ -129,10 +146,12 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
     public void setAcceptParamNames(String commaDelim) {
         Collection<String> acceptPatterns = asCollection(commaDelim);
         if (acceptPatterns != null) {
-            acceptParams = new HashSet<Pattern>();
+            Set<Pattern> patterns = new HashSet<Pattern>();
             for (String pattern : acceptPatterns) {
-                acceptParams.add(Pattern.compile(pattern));
+                patterns.add(Pattern.compile(pattern));
             }
+            acceptParams = Collections.unmodifiableSet(patterns);
+            nameFilter = null;
         }
     }
 
@@ -188,61 +207,89 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
         ParameterNameAware parameterNameAware = (action instanceof ParameterNameAware)
                 ? (ParameterNameAware) action : null;
 
-        Map params = null;
-        if (ordered) {
-            params = new TreeMap(getOrderedComparator());
-            params.putAll(parameters);
-        } else {
-            params = new TreeMap(parameters);
-        }
-
-        ValueStack newStack = ValueStackFactory.getFactory().createValueStack(stack);
-        if (newStack instanceof ClearableValueStack) {
-            //if the stack's context can be cleared, do that to prevent OGNL
-            //from having access to objects in the stack, see XW-641
-            ((ClearableValueStack)newStack).clearContextValues();
-            Map<String, Object> context = newStack.getContext();
-            OgnlContextState.setCreatingNullObjects(context, true);
-            OgnlContextState.setDenyMethodExecution(context, true);
-            OgnlContextState.setReportingConversionErrors(context, true);
-        }
-
-        boolean memberAccessStack = newStack instanceof MemberAccessValueStack;
-        if (memberAccessStack) {
-            //block or allow access to properties
-            //see WW-2761 for more details
-            MemberAccessValueStack accessValueStack = (MemberAccessValueStack) newStack;
-            accessValueStack.setAcceptProperties(acceptParams);
-            accessValueStack.setExcludeProperties(excludeParams);
-        }
-
-        for (Iterator iterator = params.entrySet().iterator(); iterator.hasNext();) {
-            Map.Entry entry = (Map.Entry) iterator.next();
-            String name = entry.getKey().toString();
+        Object[] names = getOrderedNames(parameters);
+
+        ValueStackFactory factory = ValueStackFactory.getFactory();
+        ValueStack newStack = factory.borrowValueStack(stack);
+        try {
+            if (newStack instanceof ClearableValueStack) {
+                //if the stack's context can be cleared, do that to prevent OGNL
+                //from having access to objects in the stack, see XW-641
+                ((ClearableValueStack)newStack).clearContextValues();
+                Map<String, Object> context = newStack.getContext();
+                OgnlContextState.setCreatingNullObjects(context, true);
+                OgnlContextState.setDenyMethodExecution(context, true);
+                OgnlContextState.setReportingConversionErrors(context, true);
+            }
 
-            boolean acceptableName = acceptableName(name)
-                    && (parameterNameAware == null
-                    || parameterNameAware.acceptableParameterName(name));
+            boolean memberAccessStack = newStack instanceof MemberAccessValueStack;
+            if (memberAccessStack) {
+                //block or allow access to properties
+                //see WW-2761 for more details
+                MemberAccessValueStack accessValueStack = (MemberAccessValueStack) newStack;
+                accessValueStack.setAcceptProperties(acceptParams);
+                accessValueStack.setExcludeProperties(excludeParams);
+            }
 
-            if (acceptableName) {
-                Object value = entry.getValue();
-                try {
-                    newStack.setValue(name, value);
-                } catch (RuntimeException e) {
-                    if (devMode) {
-                        String developerNotification = LocalizedTextUtil.findText(ParametersInterceptor.class, "devmode.notification", ActionContext.getContext().getLocale(), "Developer Notification:\n{0}", new Object[]{
-                                e.getMessage()
-                        });
-                        LOG.error(developerNotification);
-                        if (action instanceof ValidationAware) {
-                            ((ValidationAware) action).addActionMessage(developerNotification);
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i].toString();
+
+                boolean acceptableName = acceptableName(name)
+                        && (parameterNameAware == null
+                        || parameterNameAware.acceptableParameterName(name));
+
+                if (acceptableName) {
+                    Object value = parameters.get(names[i]);
+                    try {
+                        newStack.setValue(name, value);
+                    } catch (RuntimeException e) {
+                        if (devMode) {
+                            String developerNotification = LocalizedTextUtil.findText(ParametersInterceptor.class, "devmode.notification", ActionContext.getContext().getLocale(), "Developer Notification:\n{0}", new Object[]{
+                                    e.getMessage()
+                            });
+                            LOG.error(developerNotification);
+                            if (action instanceof ValidationAware) {
+                                ((ValidationAware) action).addActionMessage(developerNotification);
+                            }
+                        } else {
+                            LOG.error("ParametersInterceptor - [setParameters]: Unexpected Exception caught setting '" + name + "' on '" + action.getClass() + ": " + e.getMessage());
                         }
-                    } else {
-                        LOG.error("ParametersInterceptor - [setParameters]: Unexpected Exception caught setting '" + name + "' on '" + action.getClass() + ": " + e.getMessage());
                     }
                 }
             }
+        } finally {
+            factory.releaseValueStack(newStack);
+        }
+    }
+
+    /**
+     * Returns the parameter names in the order their values are set: by object depth if
+     * {@link #isOrdered()}, naturally otherwise, so that a parent is always set before its properties.
+     * The order is worked out once for every distinct set of names that is short enough to be cached.
+     */
+    private Object[] getOrderedNames(Map parameters) {
+        ParameterNames key = new ParameterNames(parameters.keySet());
+        Object[] names = orderedNames.get(key);
+        if (names == null) {
+            names = parameters.keySet().toArray();
+            if (ordered) {
+                Arrays.sort(names, getOrderedComparator());
+            } else {
+                Arrays.sort(names);
+            }
+            if (getLength(names) <= MAX_CACHED_NAMES_LENGTH) {
+                orderedNames.putIfAbsent(key.copy(), names);
+            }
+        }
+        return names;
+    }
+
+    private static int getLength(Object[] names) {
+        int length = 0;
+        for (int i = 0; i < names.length; i++) {
+            length += names[i].toString().length();
         }
+        return length;
     }
 
     /**
@@ -294,27 +341,26 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
     }
 
     protected boolean isAccepted(String paramName) {
-        if (!this.acceptParams.isEmpty()) {
-            for (Pattern pattern : acceptParams) {
-                Matcher matcher = pattern.matcher(paramName);
-                if (matcher.matches()) {
-                    return true;
-                }
-            }
-        }
-        return acceptedPattern.matcher(paramName).matches();
+        return getNameFilter().isAccepted(paramName);
     }
 
     protected boolean isExcluded(String paramName) {
-        if (!this.excludeParams.isEmpty()) {
-            for (Pattern pattern : excludeParams) {
-                Matcher matcher = pattern.matcher(paramName);
-                if (matcher.matches()) {
-                    return true;
-                }
-            }
+        return getNameFilter().isExcluded(paramName);
+    }
+
+    /**
+     * Returns the filter compiled from the accept and exclude patterns, building it on first use. The pattern
+     * sets cannot be modified, so the filter stays in step with them until a setter replaces them.
+     */
+    private PropertyNameFilter getNameFilter() {
+        PropertyNameFilter filter = nameFilter;
+        if (filter == null) {
+            Set<Pattern> accepted = new HashSet<Pattern>(acceptParams);
+            accepted.add(acceptedPattern);
+            filter = new PropertyNameFilter(accepted, excludeParams);
+            nameFilter = filter;
         }
-        return false;
+        return filter;
     }
 
     /**
@@ -333,13 +379,15 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
      */
     public void setOrdered(boolean ordered) {
         this.ordered = ordered;
+        orderedNames.clear();
     }
 
     /**
      * Gets a set of regular expressions of parameters to remove
      * from the parameter map
      *
-     * @return A set of compiled regular expression patterns
+     * @return A set of compiled regular expression patterns, which cannot be modified; use
+     *         {@link #setExcludeParams(String)} to change them
      */
     protected Set getExcludeParamsSet() {
         return excludeParams;
@@ -354,10 +402,12 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
     public void setExcludeParams(String commaDelim) {
         Collection<String> excludePatterns = asCollection(commaDelim);
         if (excludePatterns != null) {
-            excludeParams = new HashSet<Pattern>();
+            Set<Pattern> patterns = new HashSet<Pattern>();
             for (String pattern : excludePatterns) {
-                excludeParams.add(Pattern.compile(pattern));
+                patterns.add(Pattern.compile(pattern));
             }
+            excludeParams = Collections.unmodifiableSet(patterns);
+            nameFilter = null;
         }
     }
 
@@ -373,4 +423,42 @@ public class ParametersInterceptor extends MethodFilterInterceptor {
         }
         return TextParseUtil.commaDelimitedStringToSet(commaDelim);
     }
+
+    /**
+     * A set of parameter names, compared regardless of order. Lookups wrap the request's own key set;
+     * {@link #copy()} takes a snapshot to be kept as cache key.
+     */
+    static final class ParameterNames {
+        private final Set names;
+        private final int hash;
+
+        ParameterNames(Set names) {
+            this(names, names.hashCode());
+        }
+
+        private ParameterNames(Set names, int hash) {
+            this.names = names;
+            this.hash = hash;
+        }
+
+        ParameterNames copy() {
+            return new ParameterNames(new HashSet(names), hash);
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ParameterNames)) {
+                return false;
+            }
+
+            ParameterNames other = (ParameterNames) obj;
+            return hash == other.hash && names.equals(other.names);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -11,6 +11,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.opensymphony.xwork2.ActionInvocation;
+import com.opensymphony.xwork2.util.NoArgMethodCache;
 
 /**
  * A utility class for invoking prefixed methods in action class.
@@ -108,7 +109,7 @@ public class PrefixMethodInvocationUtil {
 		
 		Method method = getPrefixedMethod(prefixes, methodName, action);
 		if (method != null) {
-			method.invoke(action, new Object[0]);
+			method.invoke(action, NoArgMethodCache.NO_ARGS);
 		}
 	}
 	
@@ -131,15 +132,13 @@ public class PrefixMethodInvocationUtil {
 		String capitalizedMethodName = capitalizeMethodName(methodName);
 		for (int a=0; a< prefixes.length; a++) {
 			String prefixedMethodName = prefixes[a]+capitalizedMethodName;
-			try {
-				Method method = action.getClass().getMethod(prefixedMethodName, new Class[0]);
+			Method method = NoArgMethodCache.getMethod(action.getClass(), prefixedMethodName);
+			if (method != null) {
 				return method;
 			}
-			catch(NoSuchMethodException e) {
-				// hmm -- OK, try next prefix
-				if (_log.isDebugEnabled()) {
-					_log.debug("cannot find method ["+prefixedMethodName+"] in action ["+action+"]");
-				}
+			// hmm -- OK, try next prefix
+			if (_log.isDebugEnabled()) {
+				_log.debug("cannot find method ["+prefixedMethodName+"] in action ["+action+"]");
 			}
 		}
 		return null;
@@ -4,16 +4,16 @@
  */
 package com.opensymphony.xwork2.mock;
 
-import com.opensymphony.xwork2.Result;
+import com.opensymphony.xwork2.ShareableResult;
 import com.opensymphony.xwork2.ActionInvocation;
 
 /**
- * Mock for a {@link Result}.
+ * Mock for a {@link com.opensymphony.xwork2.Result}.
  *
  * @author Mike
  * @author Rainer Hermanns
  */
-public class MockResult implements Result {
+public class MockResult implements ShareableResult {
 
     public boolean equals(Object o) {
         if (this == o) {
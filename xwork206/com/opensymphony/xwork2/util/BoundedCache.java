@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A concurrent cache with an upper bound on the number of entries and on their total weight.
+ * <p/>
+ * Reads never take a lock: a hit only marks the entry as recently used, writing to it only if it
+ * was not marked already. When a put pushes the cache over one of its limits, a single thread
+ * evicts entries in insertion order, giving a second chance to every entry that has been read
+ * since it was last inspected (the CLOCK approximation of LRU). Other writers never wait for the
+ * eviction to finish. Hits are counted on stripes picked by thread once threads collide on the
+ * counter, so threads reading the same entries do not all write to one counter.
+ * <p/>
+ * Values may not be <tt>null</tt>; callers that want to remember a negative result should
+ * store a sentinel object instead.
+ */
+public class BoundedCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map;
+
+    /**
+     * Every entry in insertion order. Entries removed explicitly stay until eviction passes them or
+     * there are enough of them to be worth a sweep.
+     */
+    private final ConcurrentLinkedQueue<Entry<K, V>> clock = new ConcurrentLinkedQueue<Entry<K, V>>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicInteger removed = new AtomicInteger();
+    private final StripedCounter hits = new StripedCounter();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private volatile int maxEntries;
+    private volatile long maxWeight;
+
+    /**
+     * Creates a cache bounded only by the number of entries.
+     *
+     * @param maxEntries the maximum number of entries kept
+     */
+    public BoundedCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache bounded by the number of entries and by their total weight.
+     *
+     * @param maxEntries the maximum number of entries kept
+     * @param maxWeight  the maximum sum of {@link #weigh(Object, Object)} over all entries
+     */
+    public BoundedCache(int maxEntries, long maxWeight) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.map = new ConcurrentHashMap<K, Entry<K, V>>(Math.min(maxEntries, 1024));
+    }
+
+    /**
+     * Returns the cached value for the key or <tt>null</tt> if there is none.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = map.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Caches the value unless another thread got there first.
+     *
+     * @return the value now associated with the key, which is the given value unless a
+     *         concurrent put won the race
+     */
+    public V putIfAbsent(K key, V value) {
+        Entry<K, V> entry = new Entry<K, V>(key, value, weigh(key, value));
+        Entry<K, V> existing = map.putIfAbsent(key, entry);
+        if (existing != null) {
+            return existing.value;
+        }
+        clock.offer(entry);
+        weight.addAndGet(entry.weight);
+        if (isOverflowing()) {
+            evict();
+        }
+        return value;
+    }
+
+    /**
+     * Removes the entry for the key, if any.
+     */
+    public void remove(K key) {
+        Entry<K, V> entry = map.remove(key);
+        if (entry != null) {
+            weight.addAndGet(-entry.weight);
+            // the entry is left in the clock, which is swept once removed entries make up half of it
+            if (removed.incrementAndGet() > Math.max(map.size(), 16)) {
+                sweep();
+            }
+        }
+    }
+
+    /**
+     * Removes every entry. Statistics are kept.
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            map.clear();
+            clock.clear();
+            weight.set(0);
+            removed.set(0);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+        if (isOverflowing()) {
+            evict();
+        }
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+        if (isOverflowing()) {
+            evict();
+        }
+    }
+
+    /**
+     * Returns the weight of an entry, counted against {@link #getMaxWeight()}. Every entry
+     * weighs one unless overridden.
+     */
+    protected int weigh(K key, V value) {
+        return 1;
+    }
+
+    private boolean isOverflowing() {
+        return map.size() > maxEntries || weight.get() > maxWeight;
+    }
+
+    private void evict() {
+        // whoever holds the lock is already evicting on behalf of everyone else
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (isOverflowing()) {
+                Entry<K, V> entry = clock.poll();
+                if (entry == null) {
+                    return;
+                }
+                if (map.get(entry.key) != entry) {
+                    // already removed explicitly
+                    removed.decrementAndGet();
+                    continue;
+                }
+                if (entry.referenced) {
+                    entry.referenced = false;
+                    clock.offer(entry);
+                } else if (map.remove(entry.key, entry)) {
+                    weight.addAndGet(-entry.weight);
+                    evictions.incrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the entries removed explicitly from the clock.
+     */
+    private void sweep() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            for (Iterator<Entry<K, V>> iterator = clock.iterator(); iterator.hasNext();) {
+                Entry<K, V> entry = iterator.next();
+                if (map.get(entry.key) != entry) {
+                    iterator.remove();
+                    removed.decrementAndGet();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * A counter that starts out as a single value and is spread over stripes a cache line apart, each
+     * thread adding to the stripe its id falls on, once threads collide on it. Caches read by one thread
+     * at a time never allocate the stripes.
+     */
+    private static class StripedCounter {
+        /**
+         * Longs from one stripe to the next, so that stripes do not share a cache line
+         */
+        private static final int SPACING = 8;
+        private static final int STRIPES;
+
+        static {
+            int stripes = 1;
+            while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 64) {
+                stripes <<= 1;
+            }
+            STRIPES = stripes;
+        }
+
+        private final AtomicLong base = new AtomicLong();
+        private volatile AtomicLongArray stripes;
+
+        void increment() {
+            AtomicLongArray counts = stripes;
+            if (counts == null) {
+                long count = base.get();
+                if (base.compareAndSet(count, count + 1)) {
+                    return;
+                }
+                counts = inflate();
+            }
+            counts.incrementAndGet(((int) Thread.currentThread().getId() & (STRIPES - 1)) * SPACING);
+        }
+
+        private synchronized AtomicLongArray inflate() {
+            if (stripes == null) {
+                stripes = new AtomicLongArray(STRIPES * SPACING);
+            }
+            return stripes;
+        }
+
+        long sum() {
+            long sum = base.get();
+            AtomicLongArray counts = stripes;
+            if (counts != null) {
+                for (int i = 0; i < STRIPES; i++) {
+                    sum += counts.get(i * SPACING);
+                }
+            }
+            return sum;
+        }
+    }
+
+    private static class Entry<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        volatile boolean referenced;
+
+        Entry(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import ognl.MemberAccess;
+import ognl.Node;
+import ognl.OgnlContext;
+import ognl.OgnlException;
+import ognl.OgnlRuntime;
+
+import com.opensymphony.xwork2.XWorkException;
+
+import java.beans.IntrospectionException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+
+/**
+ * Evaluates plain property chains such as <code>user.address.city</code> against a {@link CompoundRoot}
+ * without walking the OGNL tree.
+ * <p/>
+ * Every evaluation walks the parsed OGNL chain one property node at a time. Once an
+ * expression has been evaluated often enough, the classes met along the way (the stack elements down to
+ * the one answering the first property, then the class of every intermediate value) are recorded
+ * together with the resolved getters. Later evaluations that meet exactly these classes call the getters
+ * directly; as soon as a class differs, the remaining property nodes are evaluated by the interpreter again.
+ * Up to {@link #MAX_SHAPES} class chains are kept per expression.
+ */
+final class CompiledPropertyChain {
+
+    private static final int MAX_SHAPES = 4;
+    private static final Pattern PROPERTY_CHAIN = Pattern.compile("[a-zA-Z_$][\\w$]*(\\.[a-zA-Z_$][\\w$]*)*");
+    private static final Pattern OGNL_KEYWORDS = Pattern.compile(
+            "top|true|false|null|and|or|not|in|instanceof|shl|shr|ushr|band|bor|xor|eq|neq|lt|gt|lte|gte|new");
+    private static final Object INELIGIBLE = new Object();
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private static final BoundedCache<String, Object> chains = new BoundedCache<String, Object>(10000);
+    private static volatile int compileThreshold = 16;
+
+    private final String[] names;
+    private final Node[] steps;
+    private volatile Shape[] shapes = new Shape[0];
+    private final AtomicInteger samples = new AtomicInteger();
+
+    private CompiledPropertyChain(String[] names, Node[] steps) {
+        this.names = names;
+        this.steps = steps;
+    }
+
+    /**
+     * Sets how many evaluations an expression needs before its current class chain is compiled.
+     * Zero or less turns compilation off; the interpreter then handles every expression.
+     */
+    static void setCompileThreshold(int threshold) {
+        compileThreshold = threshold;
+        chains.clear();
+    }
+
+    /**
+     * Returns the chain for the given expression, or <tt>null</tt> if it is more than a chain of
+     * property names and has to be left to the interpreter.
+     */
+    static CompiledPropertyChain forExpression(String expression) {
+        if (compileThreshold <= 0) {
+            return null;
+        }
+
+        Object chain = chains.get(expression);
+        if (chain == null) {
+            chain = chains.putIfAbsent(expression, parse(expression));
+        }
+
+        return (chain == INELIGIBLE) ? null : (CompiledPropertyChain) chain;
+    }
+
+    private static Object parse(String expression) {
+        if (!PROPERTY_CHAIN.matcher(expression).matches()) {
+            return INELIGIBLE;
+        }
+        String[] names = expression.split("\\.");
+        for (int i = 0; i < names.length; i++) {
+            if (OGNL_KEYWORDS.matcher(names[i]).matches()) {
+                return INELIGIBLE;
+            }
+        }
+
+        // the property nodes are kept so that accessors find the node being evaluated in the context
+        Node tree;
+        try {
+            tree = (Node) OgnlUtil.compile(expression);
+        } catch (OgnlException e) {
+            return INELIGIBLE;
+        }
+        Node[] steps = new Node[names.length];
+        if (names.length == 1) {
+            steps[0] = tree;
+        } else if (tree.jjtGetNumChildren() == names.length) {
+            for (int i = 0; i < names.length; i++) {
+                steps[i] = tree.jjtGetChild(i);
+            }
+        } else {
+            return INELIGIBLE;
+        }
+        return new CompiledPropertyChain(names, steps);
+    }
+
+    /**
+     * Evaluates the chain against the root, as <code>Ognl.getValue(expression, context, root)</code> would.
+     */
+    Object getValue(Map context, CompoundRoot root) throws OgnlException {
+        OgnlContext ognlContext = (OgnlContext) context;
+        ognlContext.setRoot(root);
+
+        Shape shape = findShape(root);
+        Class[] observed = null;
+        if (shape == null && isSampling()) {
+            observed = new Class[names.length];
+        }
+
+        MemberAccess memberAccess = ognlContext.getMemberAccess();
+        Object source = root;
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            Object target = (i == 0) ? ((shape == null) ? null : root.get(shape.depth)) : source;
+            Object result;
+
+            if (shape != null && shape.isCompiled(i, target)
+                    && memberAccess.isAccessible(context, target, shape.getters[i], name)) {
+                ognlContext.setCurrentObject(source);
+                ognlContext.setCurrentNode(steps[i]);
+                result = invoke(target, shape.getters[i], name, i == 0);
+                OgnlValueStack.ObjectAccessor.propertyAccessed(context, target.getClass(), name);
+
+                if (result == null) {
+                    result = OgnlRuntime.getNullHandler(OgnlRuntime.getTargetClass(source))
+                            .nullPropertyValue(context, source, name);
+                }
+            } else {
+                // leave the compiled shape for the rest of the chain
+                shape = null;
+                if (observed != null && source != null) {
+                    observed[i] = (i == 0) ? null : source.getClass();
+                }
+                result = steps[i].getValue(ognlContext, source);
+            }
+            source = result;
+        }
+
+        if (observed != null) {
+            compile(ognlContext, root, observed);
+        }
+
+        return source;
+    }
+
+    private Shape findShape(CompoundRoot root) {
+        Shape[] current = shapes;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].matches(root)) {
+                return current[i];
+            }
+        }
+        return null;
+    }
+
+    private boolean isSampling() {
+        if (shapes.length < MAX_SHAPES && samples.incrementAndGet() >= compileThreshold) {
+            samples.set(0);
+            return true;
+        }
+        return false;
+    }
+
+    private void compile(OgnlContext context, CompoundRoot root, Class[] observed) {
+        try {
+            Shape shape = Shape.create(context, root, names, observed);
+            if (shape != null) {
+                synchronized (this) {
+                    Shape[] current = shapes;
+                    if (current.length < MAX_SHAPES && findShape(root) == null) {
+                        Shape[] grown = new Shape[current.length + 1];
+                        System.arraycopy(current, 0, grown, 0, current.length);
+                        grown[current.length] = shape;
+                        shapes = grown;
+                    }
+                }
+            }
+        } catch (IntrospectionException e) {
+            // this class chain stays interpreted
+        } catch (OgnlException e) {
+            // this class chain stays interpreted
+        }
+    }
+
+    /**
+     * Calls the getter, failing the way the interpreter does: the first property is read through the
+     * {@link CompoundRootAccessor}, which wraps the failure in an {@link XWorkException}.
+     */
+    private static Object invoke(Object target, Method getter, String name, boolean onStack) throws OgnlException {
+        OgnlException failure;
+        try {
+            return getter.invoke(target, NO_ARGUMENTS);
+        } catch (InvocationTargetException e) {
+            failure = new OgnlException(name, e.getTargetException());
+        } catch (IllegalAccessException e) {
+            failure = new OgnlException(name, e);
+        }
+
+        if (onStack) {
+            throw new XWorkException("Caught an Ognl exception while getting property " + name, failure);
+        }
+        throw failure;
+    }
+
+    /**
+     * The classes one evaluation went through and the getters resolved for them.
+     */
+    private static final class Shape {
+        final int depth;
+        final Class[] stackClasses;
+        final Class[] targetClasses;
+        final Method[] getters;
+
+        private Shape(int depth, Class[] stackClasses, Class[] targetClasses, Method[] getters) {
+            this.depth = depth;
+            this.stackClasses = stackClasses;
+            this.targetClasses = targetClasses;
+            this.getters = getters;
+        }
+
+        boolean matches(CompoundRoot root) {
+            if (root.size() <= depth) {
+                return false;
+            }
+            for (int i = 0; i <= depth; i++) {
+                Object o = root.get(i);
+                if (o == null || o.getClass() != stackClasses[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isCompiled(int step, Object target) {
+            return getters[step] != null && target != null && target.getClass() == targetClasses[step];
+        }
+
+        /**
+         * Builds the shape of an evaluation whose intermediate value classes were observed, or returns
+         * <tt>null</tt> if not even the first property can be read through a getter.
+         */
+        static Shape create(OgnlContext context, CompoundRoot root, String[] names, Class[] observed)
+                throws IntrospectionException, OgnlException {
+            int depth = -1;
+            for (int i = 0; i < root.size(); i++) {
+                Object o = root.get(i);
+                // elements skipped over are only guarded by their class, so it must tell the whole story
+                if (o == null || o instanceof Map) {
+                    return null;
+                }
+                if (OgnlRuntime.hasGetProperty(context, o, names[0])) {
+                    depth = i;
+                    break;
+                }
+            }
+            if (depth < 0) {
+                return null;
+            }
+
+            Class[] stackClasses = new Class[depth + 1];
+            for (int i = 0; i <= depth; i++) {
+                stackClasses[i] = root.get(i).getClass();
+            }
+
+            Class[] targetClasses = new Class[names.length];
+            Method[] getters = new Method[names.length];
+            targetClasses[0] = stackClasses[depth];
+            for (int i = 1; i < names.length; i++) {
+                targetClasses[i] = observed[i];
+            }
+            for (int i = 0; i < names.length; i++) {
+                Method getter = getter(context, targetClasses[i], names[i]);
+                if (getter == null) {
+                    break;
+                }
+                getters[i] = getter;
+            }
+
+            return (getters[0] == null) ? null : new Shape(depth, stackClasses, targetClasses, getters);
+        }
+
+        private static Method getter(OgnlContext context, Class clazz, String name)
+                throws IntrospectionException, OgnlException {
+            if (clazz == null || !(OgnlRuntime.getPropertyAccessor(clazz) instanceof OgnlValueStack.ObjectAccessor)) {
+                return null;
+            }
+            Method getter = OgnlRuntime.getGetMethod(context, clazz, name);
+            if (getter == null
+                    || Modifier.isStatic(getter.getModifiers())
+                    || !Modifier.isPublic(getter.getModifiers())
+                    || !Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+                return null;
+            }
+            return getter;
+        }
+    }
+}
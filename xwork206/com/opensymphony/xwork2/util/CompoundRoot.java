@@ -4,7 +4,9 @@
  */
 package com.opensymphony.xwork2.util;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.List;
 
 
@@ -16,6 +18,15 @@ import java.util.List;
  */
 public class CompoundRoot extends ArrayList {
 
+    /**
+     * The signature of the stack when it had as many elements as the index, for every size it has passed
+     * through by pushing and popping since its signature was last worked out in full
+     */
+    private transient StackSignature[] signatures;
+    private transient boolean signaturesAllowStaticMethodAccess;
+    private transient int signaturesModCount;
+    private transient boolean tracking;
+
     public CompoundRoot() {
     }
 
@@ -33,10 +44,136 @@ public class CompoundRoot extends ArrayList {
     }
 
     public Object pop() {
-        return remove(0);
+        boolean tracked = isTracking();
+        Object o = remove(0);
+        if (tracked) {
+            // the elements below the top are the same as before the top was pushed
+            signatures[size() + 1] = null;
+            signaturesModCount = modCount;
+        }
+        return o;
     }
 
     public void push(Object o) {
+        boolean tracked = isTracking();
         add(0, o);
+        if (tracked) {
+            int size = size();
+            if (size >= signatures.length) {
+                StackSignature[] grown = new StackSignature[Math.max(size + 1, signatures.length * 2)];
+                System.arraycopy(signatures, 0, grown, 0, signatures.length);
+                signatures = grown;
+            }
+            StackSignature below = signatures[size - 1];
+            signatures[size] = (below == null) ? null : below.push((o == null) ? null : o.getClass());
+            signaturesModCount = modCount;
+        }
+    }
+
+    public Object set(int index, Object element) {
+        tracking = false;
+        return super.set(index, element);
+    }
+
+    /**
+     * Returns a view whose writes go through {@link #set(int, Object)}, {@link #add(int, Object)} and
+     * {@link #remove(int)} of this stack, which the view of {@link ArrayList} would bypass.
+     */
+    public List subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size());
+        }
+        return new SubList(this, fromIndex, toIndex);
+    }
+
+    /**
+     * Gets the signature of the objects currently on the stack. It is kept across pushes and pops and
+     * worked out again after any other change.
+     */
+    StackSignature getSignature(boolean allowStaticMethodAccess) {
+        int size = size();
+        if (isTracking() && signaturesAllowStaticMethodAccess == allowStaticMethodAccess) {
+            StackSignature current = signatures[size];
+            if (current != null) {
+                return current;
+            }
+        } else {
+            signatures = new StackSignature[size + 1];
+            signaturesAllowStaticMethodAccess = allowStaticMethodAccess;
+            tracking = true;
+        }
+
+        StackSignature current = StackSignature.of(this, allowStaticMethodAccess);
+        signatures[size] = current;
+        signaturesModCount = modCount;
+        return current;
+    }
+
+    private boolean isTracking() {
+        return tracking && signaturesModCount == modCount;
+    }
+
+    /**
+     * A range of a stack, read and written through the stack itself.
+     */
+    private static class SubList extends AbstractList {
+        private final CompoundRoot root;
+        private final int offset;
+        private int size;
+        private int expectedModCount;
+
+        SubList(CompoundRoot root, int fromIndex, int toIndex) {
+            this.root = root;
+            this.offset = fromIndex;
+            this.size = toIndex - fromIndex;
+            this.expectedModCount = root.modCount;
+        }
+
+        public Object get(int index) {
+            checkIndex(index, size);
+            return root.get(offset + index);
+        }
+
+        public Object set(int index, Object element) {
+            checkIndex(index, size);
+            return root.set(offset + index, element);
+        }
+
+        public void add(int index, Object element) {
+            checkIndex(index, size + 1);
+            root.add(offset + index, element);
+            changedSize(1);
+        }
+
+        public Object remove(int index) {
+            checkIndex(index, size);
+            Object removed = root.remove(offset + index);
+            changedSize(-1);
+            return removed;
+        }
+
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        private void checkIndex(int index, int bound) {
+            checkForComodification();
+            if (index < 0 || index >= bound) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+        }
+
+        private void changedSize(int delta) {
+            size += delta;
+            expectedModCount = root.modCount;
+            modCount++;
+        }
+
+        private void checkForComodification() {
+            if (root.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
     }
 }
@@ -25,38 +25,61 @@ import java.util.*;
 public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, ClassResolver {
 
     private final static Log log = LogFactory.getLog(CompoundRootAccessor.class);
-    private static Map invalidMethods = new HashMap();
+    private static final BoundedCache<MethodCall, Boolean> invalidMethods =
+            new BoundedCache<MethodCall, Boolean>(10000);
+    private static final ThreadLocal<MethodCall> methodCallProbes = new ThreadLocal<MethodCall>() {
+        protected MethodCall initialValue() {
+            return new MethodCall();
+        }
+    };
+    private static final Object NOT_FOUND = new Object();
 
 
     public void setProperty(Map context, Object target, Object name, Object value) throws OgnlException {
         CompoundRoot root = (CompoundRoot) target;
         OgnlContext ognlContext = (OgnlContext) context;
 
-        for (Iterator iterator = root.iterator(); iterator.hasNext();) {
-            Object o = iterator.next();
-
-            if (o == null) {
-                continue;
+        StackSignature signature = (name instanceof String)
+                ? StackSignature.forLookup(ognlContext, root, (String) name) : null;
+        StackSignature.Setter setter = (signature != null)
+                ? signature.getSetter(ognlContext, root, (String) name) : null;
+        if (setter != null) {
+            if (setter.depth >= 0) {
+                Object o = root.get(setter.depth);
+                if (setter.map) {
+                    ((Map) o).put(name, value);
+                } else {
+                    OgnlRuntime.setProperty(ognlContext, o, name, value);
+                }
+                return;
             }
+        } else {
+            for (Iterator iterator = root.iterator(); iterator.hasNext();) {
+                Object o = iterator.next();
 
-            try {
-                if (OgnlRuntime.hasSetProperty(ognlContext, o, name)) {
-                    OgnlRuntime.setProperty(ognlContext, o, name, value);
+                if (o == null) {
+                    continue;
+                }
 
-                    return;
-                } else if (o instanceof Map) {
-                    Map map = (Map) o;
-                    map.put(name, value);
-                    return;
+                try {
+                    if (OgnlRuntime.hasSetProperty(ognlContext, o, name)) {
+                        OgnlRuntime.setProperty(ognlContext, o, name, value);
+
+                        return;
+                    } else if (o instanceof Map) {
+                        Map map = (Map) o;
+                        map.put(name, value);
+                        return;
+                    }
+//                } catch (OgnlException e) {
+//                    if (e.getReason() != null) {
+//                        final String msg = "Caught an Ognl exception while setting property " + name;
+//                        log.error(msg, e);
+//                        throw new RuntimeException(msg, e.getReason());
+//                    }
+                } catch (IntrospectionException e) {
+                    // this is OK if this happens, we'll just keep trying the next
                 }
-//            } catch (OgnlException e) {
-//                if (e.getReason() != null) {
-//                    final String msg = "Caught an Ognl exception while setting property " + name;
-//                    log.error(msg, e);
-//                    throw new RuntimeException(msg, e.getReason());
-//                }
-            } catch (IntrospectionException e) {
-                // this is OK if this happens, we'll just keep trying the next
             }
         }
 
@@ -88,7 +111,33 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
                 }
             }
 
-            for (Iterator iterator = root.iterator(); iterator.hasNext();) {
+            int start = 0;
+            StackSignature signature = StackSignature.forLookup(ognlContext, root, (String) name);
+            StackSignature.Getter getter = (signature != null)
+                    ? signature.getGetter(ognlContext, root, (String) name) : null;
+            if (getter != null) {
+                for (int i = 0; i < getter.maps.length; i++) {
+                    Map map = (Map) root.get(getter.maps[i]);
+                    if (map.containsKey(name)) {
+                        Object value = getProperty(ognlContext, map, name);
+                        if (value != NOT_FOUND) {
+                            return value;
+                        }
+                    }
+                }
+                if (getter.depth < 0) {
+                    return null;
+                }
+
+                Object value = getProperty(ognlContext, root.get(getter.depth), name);
+                if (value != NOT_FOUND) {
+                    return value;
+                }
+                // keep searching below, the way the plain walk would
+                start = getter.depth + 1;
+            }
+
+            for (Iterator iterator = root.listIterator(start); iterator.hasNext();) {
                 Object o = iterator.next();
 
                 if (o == null) {
@@ -98,7 +147,10 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
                 try {
                     if ((OgnlRuntime.hasGetProperty(ognlContext, o, name)) || ((o instanceof Map) && ((Map) o).containsKey(name)))
                     {
-                        return OgnlRuntime.getProperty(ognlContext, o, name);
+                        Object value = getProperty(ognlContext, o, name);
+                        if (value != NOT_FOUND) {
+                            return value;
+                        }
                     }
                 } catch (OgnlException e) {
                     if (e.getReason() != null) {
@@ -116,6 +168,22 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
         }
     }
 
+    /**
+     * Reads the property from one object on the stack, returning {@link #NOT_FOUND} if the next object
+     * should be tried instead.
+     */
+    private Object getProperty(OgnlContext context, Object o, Object name) {
+        try {
+            return OgnlRuntime.getProperty(context, o, name);
+        } catch (OgnlException e) {
+            if (e.getReason() != null) {
+                final String msg = "Caught an Ognl exception while getting property " + name;
+                throw new XWorkException(msg, e);
+            }
+            return NOT_FOUND;
+        }
+    }
+
     public Object callMethod(Map context, Object target, String name, Object[] objects) throws MethodFailedException {
         CompoundRoot root = (CompoundRoot) target;
 
@@ -183,15 +251,18 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
             }
 
             Class clazz = o.getClass();
-            Class[] argTypes = getArgTypes(objects);
-
-            CompoundRootAccessor.MethodCall mc = null;
 
-            if (argTypes != null) {
-                mc = new CompoundRootAccessor.MethodCall(clazz, name, argTypes);
+            // the probe is only valid until the method runs, it may evaluate expressions itself
+            MethodCall probe = methodCallProbes.get().reset(clazz, name, objects);
+            boolean invalid;
+            try {
+                invalid = invalidMethods.get(probe) != null;
+            } finally {
+                // don't keep the arguments and the class of the call alive with the thread
+                probe.clear();
             }
 
-            if ((argTypes == null) || !invalidMethods.containsKey(mc)) {
+            if (!invalid) {
                 try {
                     Object value = OgnlRuntime.callMethod((OgnlContext) context, o, name, name, objects);
 
@@ -202,8 +273,8 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
                     // try the next one
                     Throwable reason = e.getReason();
 
-                    if ((mc != null) && (reason != null) && (reason.getClass() == NoSuchMethodException.class)) {
-                        invalidMethods.put(mc, Boolean.TRUE);
+                    if ((reason != null) && (reason.getClass() == NoSuchMethodException.class)) {
+                        invalidMethods.putIfAbsent(new MethodCall(clazz, name, getArgTypes(objects)), Boolean.TRUE);
                     } else if (reason != null) {
                         throw new MethodFailedException(o, name, e.getReason());
                     }
@@ -258,10 +329,16 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
     }
 
 
+    /**
+     * Identifies a method call by target class, method name and argument types. Keys stored in the
+     * cache hold the argument types; a probe, reused by its thread for lookups, takes them from the
+     * arguments themselves so that looking up allocates nothing.
+     */
     static class MethodCall {
         Class clazz;
         String name;
         Class[] args;
+        Object[] arguments;
         int hash;
 
         public MethodCall(Class clazz, String name, Class[] args) {
@@ -276,10 +353,54 @@ public class CompoundRootAccessor implements PropertyAccessor, MethodAccessor, C
             }
         }
 
+        MethodCall() {
+        }
+
+        MethodCall reset(Class clazz, String name, Object[] arguments) {
+            this.clazz = clazz;
+            this.name = name;
+            this.arguments = arguments;
+            this.hash = clazz.hashCode() + name.hashCode();
+
+            for (int i = 0; i < getArgCount(); i++) {
+                hash += getArgType(i).hashCode();
+            }
+            return this;
+        }
+
+        void clear() {
+            this.clazz = null;
+            this.name = null;
+            this.arguments = null;
+        }
+
+        int getArgCount() {
+            if (args != null) {
+                return args.length;
+            }
+            return (arguments == null) ? 0 : arguments.length;
+        }
+
+        Class getArgType(int index) {
+            if (args != null) {
+                return args[index];
+            }
+            Object arg = arguments[index];
+            return (arg != null) ? arg.getClass() : Object.class;
+        }
+
         public boolean equals(Object obj) {
             MethodCall mc = (CompoundRootAccessor.MethodCall) obj;
 
-            return (mc.clazz.equals(clazz) && mc.name.equals(name) && Arrays.equals(mc.args, args));
+            if (!(mc.clazz.equals(clazz) && mc.name.equals(name) && mc.getArgCount() == getArgCount())) {
+                return false;
+            }
+            for (int i = 0; i < getArgCount(); i++) {
+                if (mc.getArgType(i) != getArgType(i)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         public int hashCode() {
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import java.util.HashMap;
+
+
+/**
+ * The conversion errors of a request, mapping the full name of every property that could not be converted
+ * to the value it was given. Besides the value, the type it could not be converted to is recorded if known.
+ * <p/>
+ * The map is sized for the handful of errors a request usually has; the target types are only kept once
+ * a first one is known. {@link XWorkConverter#getConversionErrorMessage(String, ValueStack)} passes the target
+ * type on to the default conversion error message.
+ */
+public class ConversionErrors extends HashMap<String, Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private HashMap<String, Class> targetTypes;
+
+    public ConversionErrors() {
+        super(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Records a conversion error.
+     *
+     * @param property   the full name of the property
+     * @param value      the value that could not be converted
+     * @param targetType the type the value could not be converted to, or <tt>null</tt> if not known
+     */
+    public void addError(String property, Object value, Class targetType) {
+        put(property, value);
+        if (targetType != null) {
+            if (targetTypes == null) {
+                targetTypes = new HashMap<String, Class>(INITIAL_CAPACITY);
+            }
+            targetTypes.put(property, targetType);
+        } else if (targetTypes != null) {
+            targetTypes.remove(property);
+        }
+    }
+
+    /**
+     * Records the type the value of a property could not be converted to. The type is only reported while
+     * there is an error for the property.
+     *
+     * @param property   the full name of the property
+     * @param targetType the type the value could not be converted to
+     */
+    public void setTargetType(String property, Class targetType) {
+        if (targetTypes == null) {
+            targetTypes = new HashMap<String, Class>(INITIAL_CAPACITY);
+        }
+        targetTypes.put(property, targetType);
+    }
+
+    /**
+     * @return the type the value of the property could not be converted to, or <tt>null</tt> if there is
+     *         no error for the property or the type is not known
+     */
+    public Class getTargetType(String property) {
+        return (targetTypes == null || !containsKey(property)) ? null : targetTypes.get(property);
+    }
+
+    public Object remove(Object property) {
+        if (targetTypes != null) {
+            targetTypes.remove(property);
+        }
+        return super.remove(property);
+    }
+
+    public void clear() {
+        super.clear();
+        targetTypes = null;
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2002-2007 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import ognl.TypeConverter;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+
+/**
+ * A precomputed index of the conversion mappings of a module's classes, so that {@link XWorkConverter} does not
+ * have to look for <code>-conversion.properties</code> files and {@link com.opensymphony.xwork2.conversion.annotations.TypeConversion}
+ * annotations throughout the class hierarchy the first time a class is converted.
+ * <p/>
+ * The index is written at build time by running {@link #run(String[])} over the compiled classes of a module and
+ * is read from the classpath as <code>xwork-conversion-index.properties</code> when the converter is created. The
+ * indexes of all modules on the classpath are merged; a class indexed by more than one keeps the entries of the
+ * first index found.
+ * Every indexed class has an entry of its own, which marks it as indexed even if it has no mappings, followed by
+ * one entry per mapping:
+ * <pre>
+ * com.acme.OrderAction=
+ * com.acme.OrderAction#Element_items=class:com.acme.Item
+ * com.acme.OrderAction#KeyProperty_items=string:id
+ * com.acme.OrderAction#amount=converter:com.acme.MoneyConverter
+ * com.acme.OrderAction@com.acme.Money=converter:com.acme.MoneyConverter
+ * </pre>
+ * Entries after a <code>@</code> are application wide converters declared on the class. The index is not used while
+ * configuration files are being reloaded, and a class whose indexed mapping cannot be restored is scanned as usual.
+ * Since the index also holds the mappings inherited from other modules, it has to be rebuilt whenever they change.
+ */
+public class ConversionIndex {
+
+    private static final Log LOG = LogFactory.getLog(ConversionIndex.class);
+
+    public static final String INDEX_FILE = "xwork-conversion-index.properties";
+
+    private static final String CONVERTER = "converter:";
+    private static final String CLASS = "class:";
+    private static final String STRING = "string:";
+
+    /**
+     * The entries of every indexed class as mapping key / value pairs, application wide converters marked
+     * by a leading <code>@</code> in the key
+     */
+    private final Map<String, String[]> entries;
+
+    private ConversionIndex(Map<String, String[]> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the indexes on the classpath.
+     *
+     * @return the merged index, empty if there is none
+     */
+    public static ConversionIndex load() {
+        Map<String, List<String>> grouped = new HashMap<String, List<String>>();
+        Iterator<URL> urls;
+        try {
+            urls = ClassLoaderUtil.getResources(INDEX_FILE, ConversionIndex.class, false);
+        } catch (IOException e) {
+            LOG.error("Cannot look for " + INDEX_FILE + ", conversion mappings will be looked up", e);
+            urls = Collections.<URL>emptyList().iterator();
+        }
+
+        while (urls.hasNext()) {
+            URL url = urls.next();
+            Properties props = new Properties();
+            InputStream is = null;
+            try {
+                is = url.openStream();
+                props.load(is);
+            } catch (IOException e) {
+                LOG.error("Cannot read " + url + ", conversion mappings of the classes it indexes will be looked up", e);
+                continue;
+            } finally {
+                if (is != null) {
+                    try {
+                        is.close();
+                    } catch (IOException e) {
+                        // ignore
+                    }
+                }
+            }
+
+            Map<String, List<String>> indexed = group(props);
+            for (Iterator<Map.Entry<String, List<String>>> it = indexed.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, List<String>> entry = it.next();
+                if (!grouped.containsKey(entry.getKey())) {
+                    grouped.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        Map<String, String[]> entries = new HashMap<String, String[]>(grouped.size());
+        for (Iterator<Map.Entry<String, List<String>>> it = grouped.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, List<String>> entry = it.next();
+            entries.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+        }
+        return new ConversionIndex(entries);
+    }
+
+    /**
+     * Groups the entries of one index by class, as mapping key / value pairs.
+     */
+    private static Map<String, List<String>> group(Properties props) {
+        Map<String, List<String>> grouped = new HashMap<String, List<String>>();
+        for (Iterator it = props.entrySet().iterator(); it.hasNext();) {
+            Map.Entry entry = (Map.Entry) it.next();
+            String key = (String) entry.getKey();
+            int separator = indexOfSeparator(key);
+            String className = (separator < 0) ? key : key.substring(0, separator);
+
+            List<String> pairs = grouped.get(className);
+            if (pairs == null) {
+                pairs = new ArrayList<String>();
+                grouped.put(className, pairs);
+            }
+            if (separator >= 0) {
+                String mappingKey = key.substring(separator + 1);
+                pairs.add((key.charAt(separator) == '@') ? '@' + mappingKey : mappingKey);
+                pairs.add((String) entry.getValue());
+            }
+        }
+        return grouped;
+    }
+
+    private static int indexOfSeparator(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '#' || c == '@') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Restores the mapping of an indexed class, registering the application wide converters it declares
+     * with the converter.
+     *
+     * @return the mapping, or <tt>null</tt> if the class is not indexed or its mapping cannot be restored
+     */
+    Map<String, Object> getMapping(Class clazz, XWorkConverter converter) {
+        String[] pairs = entries.get(clazz.getName());
+        if (pairs == null) {
+            return null;
+        }
+
+        Map<String, Object> mapping = new HashMap<String, Object>();
+        Map<String, TypeConverter> applicationConverters = new HashMap<String, TypeConverter>();
+        try {
+            for (int i = 0; i < pairs.length; i += 2) {
+                String key = pairs[i];
+                Object value = restore(pairs[i + 1], converter);
+                if (key.charAt(0) == '@') {
+                    applicationConverters.put(key.substring(1), (TypeConverter) value);
+                } else {
+                    mapping.put(key, value);
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("Cannot restore the indexed conversion mapping of " + clazz.getName() + ", looking it up instead", e);
+            return null;
+        }
+
+        for (Iterator<Map.Entry<String, TypeConverter>> it = applicationConverters.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, TypeConverter> entry = it.next();
+            converter.addDefaultMapping(entry.getKey(), entry.getValue());
+        }
+        return mapping;
+    }
+
+    private Object restore(String value, XWorkConverter converter) throws Exception {
+        if (value.startsWith(CONVERTER)) {
+            return converter.createTypeConverter(value.substring(CONVERTER.length()));
+        } else if (value.startsWith(CLASS)) {
+            return Thread.currentThread().getContextClassLoader().loadClass(value.substring(CLASS.length()));
+        } else if (value.startsWith(STRING)) {
+            return value.substring(STRING.length());
+        }
+        throw new IllegalArgumentException("Unknown conversion index value " + value);
+    }
+
+    /**
+     * Runs {@link #run(String[])} from the command line, exiting with status 1 if the arguments are wrong.
+     */
+    public static void main(String[] args) throws IOException {
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            LOG.error(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the index for the classes found in the given class directories.
+     * <p/>
+     * Arguments: <code>&lt;index file&gt; &lt;class directory&gt;...</code>, with the module and its
+     * dependencies on the classpath. Classes that cannot be loaded are left out of the index.
+     *
+     * @throws IllegalArgumentException if there are fewer than two arguments
+     */
+    public static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: ConversionIndex <index file> <class directory>...");
+        }
+
+        List<String> classNames = new ArrayList<String>();
+        for (int i = 1; i < args.length; i++) {
+            collectClassNames(new File(args[i]), "", classNames);
+        }
+        Collections.sort(classNames);
+
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        List<Class> classes = new ArrayList<Class>(classNames.size());
+        for (Iterator<String> it = classNames.iterator(); it.hasNext();) {
+            String className = it.next();
+            try {
+                classes.add(Class.forName(className, false, loader));
+            } catch (Throwable t) {
+                LOG.warn("Cannot load " + className + ", leaving it out of the conversion index", t);
+            }
+        }
+
+        OutputStream out = new FileOutputStream(args[0]);
+        try {
+            write(classes, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void collectClassNames(File dir, String packagePrefix, List<String> classNames) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (int i = 0; i < files.length; i++) {
+            String name = files[i].getName();
+            if (files[i].isDirectory()) {
+                collectClassNames(files[i], packagePrefix + name + ".", classNames);
+            } else if (name.endsWith(".class") && name.indexOf('$') < 0) {
+                classNames.add(packagePrefix + name.substring(0, name.length() - ".class".length()));
+            }
+        }
+    }
+
+    /**
+     * Writes the index entries of the given classes.
+     */
+    public static void write(List<Class> classes, OutputStream out) throws IOException {
+        IndexingConverter converter = new IndexingConverter();
+        Map<String, String> index = new HashMap<String, String>();
+
+        for (Iterator<Class> it = classes.iterator(); it.hasNext();) {
+            Class clazz = it.next();
+            Map<String, Object> mapping;
+            try {
+                converter.applicationConverters.clear();
+                mapping = converter.scanConverterMapping(clazz);
+            } catch (Throwable t) {
+                LOG.warn("Cannot scan the conversion mapping of " + clazz.getName() + ", leaving it out of the conversion index", t);
+                continue;
+            }
+
+            String className = clazz.getName();
+            Map<String, String> classEntries = new HashMap<String, String>();
+            try {
+                for (Iterator<Map.Entry<String, Object>> entries = mapping.entrySet().iterator(); entries.hasNext();) {
+                    Map.Entry<String, Object> entry = entries.next();
+                    classEntries.put(className + '#' + entry.getKey(), encode(entry.getValue()));
+                }
+                for (Iterator<Map.Entry<String, TypeConverter>> entries = converter.applicationConverters.entrySet().iterator(); entries.hasNext();) {
+                    Map.Entry<String, TypeConverter> entry = entries.next();
+                    classEntries.put(className + '@' + entry.getKey(), encode(entry.getValue()));
+                }
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Cannot index the conversion mapping of " + className + ", leaving it out of the conversion index", e);
+                continue;
+            }
+
+            index.put(className, "");
+            index.putAll(classEntries);
+        }
+
+        Properties props = new Properties();
+        props.putAll(index);
+        props.store(out, "XWork conversion index");
+    }
+
+    private static String encode(Object value) {
+        if (value instanceof ConverterName) {
+            return CONVERTER + ((ConverterName) value).className;
+        } else if (value instanceof Class) {
+            return CLASS + ((Class) value).getName();
+        } else if (value instanceof String) {
+            return STRING + value;
+        }
+        throw new IllegalArgumentException("Cannot index conversion mapping value " + value);
+    }
+
+    /**
+     * Scans classes like the runtime converter does, but records converter class names instead of
+     * creating the converters.
+     */
+    private static class IndexingConverter extends XWorkConverter {
+        final Map<String, TypeConverter> applicationConverters = new TreeMap<String, TypeConverter>();
+        private boolean scanning;
+
+        TypeConverter createTypeConverter(String className) {
+            return new ConverterName(className);
+        }
+
+        synchronized void addDefaultMapping(String className, TypeConverter converter) {
+            if (scanning) {
+                applicationConverters.put(className, converter);
+            }
+        }
+
+        Map<String, Object> scanConverterMapping(Class clazz) throws Exception {
+            scanning = true;
+            try {
+                return super.scanConverterMapping(clazz);
+            } finally {
+                scanning = false;
+            }
+        }
+    }
+
+    private static class ConverterName extends ognl.DefaultTypeConverter {
+        final String className;
+
+        ConverterName(String className) {
+            this.className = className;
+        }
+    }
+}
@@ -47,6 +47,12 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
     public static final String CREATE_IF_NULL_PREFIX = "CreateIfNull_";
     public static final String DEPRECATED_ELEMENT_PREFIX = "Collection_";
 
+    /**
+     * The annotations and generic types resolved per class and property
+     */
+    private final BoundedCache<PropertyKey, PropertyMetadata> metadata =
+            new BoundedCache<PropertyKey, PropertyMetadata>(10000);
+
     /**
      * Determines the key class by looking for the value of @Key annotation for the given class.
      * If no annotation is found, the key class is determined by using the generic parametrics.
@@ -59,13 +65,14 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
      * @see com.opensymphony.xwork2.util.ObjectTypeDeterminer#getKeyClass(Class, String)
      */
     public Class getKeyClass(Class parentClass, String property) {
-        Key annotation = getAnnotation(parentClass, property, Key.class);
+        PropertyMetadata propertyMetadata = getMetadata(parentClass, property);
+        Key annotation = propertyMetadata.key;
 
         if (annotation != null) {
             return annotation.value();
         }
 
-        Class clazz = getClass(parentClass, property, false);
+        Class clazz = propertyMetadata.genericKeyClass;
 
         if (clazz != null) {
             return clazz;
@@ -88,13 +95,14 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
      * @see com.opensymphony.xwork2.util.ObjectTypeDeterminer#getElementClass(Class, String, Object)
      */
     public Class getElementClass(Class parentClass, String property, Object key) {
-        Element annotation = getAnnotation(parentClass, property, Element.class);
+        PropertyMetadata propertyMetadata = getMetadata(parentClass, property);
+        Element annotation = propertyMetadata.element;
 
         if (annotation != null) {
             return annotation.value();
         }
 
-        Class clazz = getClass(parentClass, property, true);
+        Class clazz = propertyMetadata.genericElementClass;
 
         if (clazz != null) {
             return clazz;
@@ -126,7 +134,7 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
      * @see com.opensymphony.xwork2.util.ObjectTypeDeterminer#getKeyProperty(Class, String)
      */
     public String getKeyProperty(Class parentClass, String property) {
-        KeyProperty annotation = getAnnotation(parentClass, property, KeyProperty.class);
+        KeyProperty annotation = getMetadata(parentClass, property).keyProperty;
 
         if (annotation != null) {
             return annotation.value();
@@ -156,7 +164,7 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
                                      String keyProperty,
                                      boolean isIndexAccessed) {
 
-        CreateIfNull annotation = getAnnotation(parentClass, property, CreateIfNull.class);
+        CreateIfNull annotation = getMetadata(parentClass, property).createIfNull;
 
         if (annotation != null) {
             return annotation.value();
@@ -184,6 +192,32 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
 
     }
 
+    /**
+     * Returns the annotations and generic types of the property, resolved once per class and property.
+     */
+    private PropertyMetadata getMetadata(Class parentClass, String property) {
+        if (parentClass == null || property == null) {
+            return resolveMetadata(parentClass, property);
+        }
+
+        PropertyKey key = new PropertyKey(parentClass, property);
+        PropertyMetadata propertyMetadata = metadata.get(key);
+        if (propertyMetadata == null) {
+            propertyMetadata = metadata.putIfAbsent(key, resolveMetadata(parentClass, property));
+        }
+        return propertyMetadata;
+    }
+
+    private PropertyMetadata resolveMetadata(Class parentClass, String property) {
+        return new PropertyMetadata(
+                getAnnotation(parentClass, property, Key.class),
+                getAnnotation(parentClass, property, Element.class),
+                getAnnotation(parentClass, property, KeyProperty.class),
+                getAnnotation(parentClass, property, CreateIfNull.class),
+                getClass(parentClass, property, false),
+                getClass(parentClass, property, true));
+    }
+
     /**
      * Retrieves an annotation for the specified property of field, setter or getter.
      *
@@ -332,4 +366,50 @@ public class DefaultObjectTypeDeterminer implements ObjectTypeDeterminer {
         }
         return null;
     }
+
+    /**
+     * Everything this determiner reads from the annotations and generic types of a property. Immutable once
+     * created, so it is shared by all threads.
+     */
+    private static final class PropertyMetadata {
+        final Key key;
+        final Element element;
+        final KeyProperty keyProperty;
+        final CreateIfNull createIfNull;
+        final Class genericKeyClass;
+        final Class genericElementClass;
+
+        PropertyMetadata(Key key, Element element, KeyProperty keyProperty, CreateIfNull createIfNull,
+                         Class genericKeyClass, Class genericElementClass) {
+            this.key = key;
+            this.element = element;
+            this.keyProperty = keyProperty;
+            this.createIfNull = createIfNull;
+            this.genericKeyClass = genericKeyClass;
+            this.genericElementClass = genericElementClass;
+        }
+    }
+
+    private static final class PropertyKey {
+        private final Class parentClass;
+        private final String property;
+
+        PropertyKey(Class parentClass, String property) {
+            this.parentClass = parentClass;
+            this.property = property;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof PropertyKey)) {
+                return false;
+            }
+
+            PropertyKey other = (PropertyKey) o;
+            return parentClass == other.parentClass && property.equals(other.property);
+        }
+
+        public int hashCode() {
+            return 31 * parentClass.hashCode() + property.hashCode();
+        }
+    }
 }
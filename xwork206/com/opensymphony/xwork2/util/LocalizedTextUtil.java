@@ -7,6 +7,7 @@ package com.opensymphony.xwork2.util;
 import com.opensymphony.xwork2.ActionContext;
 import com.opensymphony.xwork2.ActionInvocation;
 import com.opensymphony.xwork2.ModelDriven;
+import com.opensymphony.xwork2.inject.Inject;
 
 import ognl.OgnlRuntime;
 
@@ -19,6 +20,10 @@ import java.lang.reflect.Method;
 import java.lang.reflect.InvocationTargetException;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 
 /**
@@ -73,8 +78,16 @@ public class LocalizedTextUtil {
     private static List DEFAULT_RESOURCE_BUNDLES = null;
     private static final Log LOG = LogFactory.getLog(LocalizedTextUtil.class);
     private static boolean reloadBundles = false;
-    private static final Map<String, String> misses = new HashMap<String, String>();
-    private static final Map messageFormats = new HashMap();
+    private static List<Locale> preloadLocales = Collections.emptyList();
+    private static final Object MISSING = new Object();
+    private static final BoundedCache<BundleKey, Object> bundles = new BoundedCache<BundleKey, Object>(10000);
+    private static final BoundedCache<MessageFormatKey, MessageFormatter> messageFormats =
+            new BoundedCache<MessageFormatKey, MessageFormatter>(10000);
+    private static final BoundedCache<MessageFormatKey, MessageTemplate> messageTemplates =
+            new BoundedCache<MessageFormatKey, MessageTemplate>(10000);
+    private static final TextLocation NOT_FOUND = new TextLocation(null, null);
+    private static final BoundedCache<TextKey, TextLocation> textLocations =
+            new BoundedCache<TextKey, TextLocation>(10000);
 
     static {
         clearDefaultResourceBundles();
@@ -100,6 +113,132 @@ public class LocalizedTextUtil {
         LocalizedTextUtil.reloadBundles = reloadBundles;
     }
 
+    /**
+     * Sets the locales whose bundles {@link #preloadBundles(Collection)} loads, as a comma separated list
+     * of locales in the form of {@link Locale#toString()}.
+     *
+     * @param locales  the locales to preload bundles for.
+     */
+    @Inject(value = "i18n.preloadLocales", required = false)
+    public static void setPreloadLocales(String locales) {
+        List<Locale> list = new ArrayList<Locale>();
+        for (Iterator iterator = TextParseUtil.commaDelimitedStringToSet(locales).iterator(); iterator.hasNext();) {
+            list.add(localeFromString((String) iterator.next(), null));
+        }
+        preloadLocales = list;
+    }
+
+    /**
+     * Loads the bundles texts of the given classes are looked up in, for the locales configured by
+     * {@link #setPreloadLocales(String)}.
+     *
+     * @see #preloadBundles(Collection, Collection)
+     */
+    public static void preloadBundles(Collection<String> classNames) {
+        preloadBundles(classNames, preloadLocales);
+    }
+
+    /**
+     * Loads the default resource bundles and the bundles of the class hierarchy and the package hierarchy
+     * of the given classes for the given locales, so that they are cached before the first texts are looked
+     * up. The bundles are loaded in parallel; bundles that do not exist are remembered as missing.
+     * <p/>
+     * Nothing is loaded while bundles are being reloaded. Classes that cannot be loaded are skipped.
+     *
+     * @param classNames  the names of the classes, usually of the actions.
+     * @param locales     the locales to load the bundles for.
+     */
+    public static void preloadBundles(Collection<String> classNames, Collection<Locale> locales) {
+        if (reloadBundles || locales.isEmpty()) {
+            return;
+        }
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final Set<String> bundleNames;
+        List defaultBundles = DEFAULT_RESOURCE_BUNDLES;
+        // copied while holding the list's lock, as addDefaultResourceBundle may change it at the same time
+        synchronized (defaultBundles) {
+            bundleNames = new LinkedHashSet<String>(defaultBundles);
+        }
+        Set<Class> checked = new HashSet<Class>();
+        for (Iterator<String> iterator = classNames.iterator(); iterator.hasNext();) {
+            String className = iterator.next();
+            try {
+                addBundleNames(Class.forName(className, false, classLoader), bundleNames, checked);
+            } catch (Throwable t) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Not preloading bundles for class " + className + ": " + t);
+                }
+            }
+        }
+
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(bundleNames.size());
+        final Locale[] localeArray = locales.toArray(new Locale[locales.size()]);
+        for (Iterator<String> iterator = bundleNames.iterator(); iterator.hasNext();) {
+            final String bundleName = iterator.next();
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    Thread thread = Thread.currentThread();
+                    ClassLoader previous = thread.getContextClassLoader();
+                    // bundles are cached per context class loader
+                    thread.setContextClassLoader(classLoader);
+                    try {
+                        for (int i = 0; i < localeArray.length; i++) {
+                            findResourceBundle(bundleName, localeArray[i]);
+                        }
+                    } finally {
+                        thread.setContextClassLoader(previous);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), tasks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "xwork-i18n-preload");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Preloaded " + bundleNames.size() + " resource bundles for locales " + locales);
+        }
+    }
+
+    /**
+     * Adds the bundles {@link #findText(Class, String, Locale, String, Object[])} searches for the class.
+     */
+    private static void addBundleNames(Class aClass, Set<String> bundleNames, Set<Class> checked) {
+        for (Class clazz = aClass; clazz != null && checked.add(clazz); clazz = clazz.getSuperclass()) {
+            bundleNames.add(clazz.getName());
+            addInterfaceBundleNames(clazz.getInterfaces(), bundleNames);
+
+            String basePackageName = clazz.getName();
+            while (basePackageName.lastIndexOf('.') != -1) {
+                basePackageName = basePackageName.substring(0, basePackageName.lastIndexOf('.'));
+                bundleNames.add(basePackageName + ".package");
+            }
+        }
+    }
+
+    private static void addInterfaceBundleNames(Class[] interfaces, Set<String> bundleNames) {
+        for (int i = 0; i < interfaces.length; i++) {
+            if (bundleNames.add(interfaces[i].getName())) {
+                addInterfaceBundleNames(interfaces[i].getInterfaces(), bundleNames);
+            }
+        }
+    }
+
     /**
      * Add's the bundle to the internal list of default bundles.
      * <p/>
@@ -199,7 +338,7 @@ public class LocalizedTextUtil {
     public static String findDefaultText(String aTextName, Locale locale, Object[] params) {
         String defaultText = findDefaultText(aTextName, locale);
         if (defaultText != null) {
-            MessageFormat mf = buildMessageFormat(defaultText, locale);
+            MessageFormatter mf = buildMessageFormat(defaultText, locale);
             return mf.format(params);
         }
         return null;
@@ -209,35 +348,30 @@ public class LocalizedTextUtil {
      * Finds the given resorce bundle by it's name.
      * <p/>
      * Will use <code>Thread.currentThread().getContextClassLoader()</code> as the classloader.
+     * Both found and missing bundles are remembered, except that found bundles are looked up
+     * again every time while bundles are being reloaded.
      * 
      * @param aBundleName  the name of the bundle (usually it's FQN classname).
      * @param locale       the locale.
      * @return  the bundle, <tt>null</tt> if not found.
      */
     public static ResourceBundle findResourceBundle(String aBundleName, Locale locale) {
-        synchronized (misses) {
-            String key = createMissesKey(aBundleName, locale);
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        BundleKey key = new BundleKey(aBundleName, locale, classLoader);
+        Object bundle = bundles.get(key);
+
+        if (bundle == null) {
             try {
-                if (!misses.containsKey(key)) {
-                    return ResourceBundle.getBundle(aBundleName, locale, Thread.currentThread().getContextClassLoader());
+                bundle = ResourceBundle.getBundle(aBundleName, locale, classLoader);
+                if (!reloadBundles) {
+                    bundles.putIfAbsent(key, bundle);
                 }
             } catch (MissingResourceException ex) {
-                misses.put(key, aBundleName);
+                bundle = bundles.putIfAbsent(key, MISSING);
             }
         }
 
-        return null;
-    }
-
-    /**
-     * Creates a key to used for lookup/storing in the bundle misses cache.
-     *
-     * @param aBundleName  the name of the bundle (usually it's FQN classname).
-     * @param locale       the locale.
-     * @return the key to use for lookup/storing in the bundle misses cache.
-     */
-    private static String createMissesKey(String aBundleName, Locale locale) {
-        return aBundleName + "_" + locale.toString();
+        return (bundle == MISSING) ? null : (ResourceBundle) bundle;
     }
 
     /**
@@ -357,7 +491,7 @@ public class LocalizedTextUtil {
         }
 
         // search up class hierarchy
-        String msg = findMessage(aClass, aTextName, indexedTextName, locale, args, null, valueStack);
+        String msg = getMessage(locateText(aClass, aTextName, indexedTextName, locale, false), locale, valueStack, args);
 
         if (msg != null) {
             return msg;
@@ -374,7 +508,7 @@ public class LocalizedTextUtil {
                 if (action instanceof ModelDriven) {
                     Object model = ((ModelDriven) action).getModel();
                     if (model != null) {
-                        msg = findMessage(model.getClass(), aTextName, indexedTextName, locale, args, null, valueStack);
+                        msg = getMessage(locateText(model.getClass(), aTextName, indexedTextName, locale, false), locale, valueStack, args);
                         if (msg != null) {
                             return msg;
                         }
@@ -384,28 +518,10 @@ public class LocalizedTextUtil {
         }
 
         // nothing still? alright, search the package hierarchy now
-        for (Class clazz = aClass;
-             (clazz != null) && !clazz.equals(Object.class);
-             clazz = clazz.getSuperclass()) {
+        msg = getMessage(locateText(aClass, aTextName, indexedTextName, locale, true), locale, valueStack, args);
 
-            String basePackageName = clazz.getName();
-            while (basePackageName.lastIndexOf('.') != -1) {
-                basePackageName = basePackageName.substring(0, basePackageName.lastIndexOf('.'));
-                String packageName = basePackageName + ".package";
-                msg = getMessage(packageName, locale, aTextName, valueStack, args);
-
-                if (msg != null) {
-                    return msg;
-                }
-
-                if (indexedTextName != null) {
-                    msg = getMessage(packageName, locale, indexedTextName, valueStack, args);
-
-                    if (msg != null) {
-                        return msg;
-                    }
-                }
-            }
+        if (msg != null) {
+            return msg;
         }
 
         // see if it's a child property
@@ -555,10 +671,7 @@ public class LocalizedTextUtil {
         try {
             reloadBundles();
 
-            String message = TextParseUtil.translateVariables(bundle.getString(aTextName), valueStack);
-            MessageFormat mf = buildMessageFormat(message, locale);
-
-            return mf.format(args);
+            return buildMessageTemplate(bundle.getString(aTextName), locale).render(valueStack, args);
         } catch (MissingResourceException ex) {
         	// ignore
         }
@@ -587,9 +700,7 @@ public class LocalizedTextUtil {
 
             // defaultMessage may be null
             if (message != null) {
-                MessageFormat mf = buildMessageFormat(TextParseUtil.translateVariables(message, valueStack), locale);
-
-                String msg = mf.format(args);
+                String msg = buildMessageTemplate(message, locale).render(valueStack, args);
                 result = new GetDefaultMessageReturnArg(msg, found);
             }
         }
@@ -609,32 +720,95 @@ public class LocalizedTextUtil {
         reloadBundles();
 
         try {
-            String message = TextParseUtil.translateVariables(bundle.getString(key), valueStack);
-            MessageFormat mf = buildMessageFormat(message, locale);
-            return mf.format(args);
+            return buildMessageTemplate(bundle.getString(key), locale).render(valueStack, args);
         } catch (MissingResourceException e) {
             return null;
         }
     }
 
-    private static MessageFormat buildMessageFormat(String pattern, Locale locale) {
+    /**
+     * Gets the message from the bundle it was located in.
+     */
+    private static String getMessage(TextLocation location, Locale locale, ValueStack valueStack, Object[] args) {
+        if (location == null) {
+            return null;
+        }
+        return getMessage(location.bundleName, locale, location.key, valueStack, args);
+    }
+
+    static MessageFormatter buildMessageFormat(String pattern, Locale locale) {
         MessageFormatKey key = new MessageFormatKey(pattern, locale);
-        MessageFormat format = (MessageFormat) messageFormats.get(key);
+        MessageFormatter format = messageFormats.get(key);
         if (format == null) {
-            format = new MessageFormat(pattern);
-            format.setLocale(locale);
-            format.applyPattern(pattern);
-            messageFormats.put(key, format);
+            format = messageFormats.putIfAbsent(key, new MessageFormatter(pattern, locale));
         }
 
         return format;
     }
 
+    /**
+     * Compiles a message whose variables are yet to be translated, see {@link MessageTemplate}.
+     */
+    private static MessageTemplate buildMessageTemplate(String message, Locale locale) {
+        MessageFormatKey key = new MessageFormatKey(message, locale);
+        MessageTemplate template = messageTemplates.get(key);
+        if (template == null) {
+            template = messageTemplates.putIfAbsent(key, new MessageTemplate(message, locale));
+        }
+
+        return template;
+    }
+
+    /**
+     * Finds the bundle holding the text for the key, or for the indexed key, searching either the class
+     * hierarchy or the package hierarchy of the class. Where the text was found, or that it was not,
+     * is remembered unless bundles are being reloaded.
+     *
+     * @return where the text is, <tt>null</tt> if not found
+     */
+    private static TextLocation locateText(Class clazz, String key, String indexedKey, Locale locale, boolean packages) {
+        if (reloadBundles) {
+            return packages ? findPackageMessage(clazz, key, indexedKey, locale)
+                    : findMessage(clazz, key, indexedKey, locale, null);
+        }
+
+        TextKey textKey = new TextKey(clazz, key, locale, Thread.currentThread().getContextClassLoader(), packages);
+        TextLocation location = textLocations.get(textKey);
+        if (location == null) {
+            location = packages ? findPackageMessage(clazz, key, indexedKey, locale)
+                    : findMessage(clazz, key, indexedKey, locale, null);
+            location = textLocations.putIfAbsent(textKey, (location != null) ? location : NOT_FOUND);
+        }
+
+        return (location == NOT_FOUND) ? null : location;
+    }
+
+    /**
+     * Looks for the key in the named resource bundle.
+     *
+     * @return where the text is, <tt>null</tt> if the bundle or the key does not exist
+     */
+    private static TextLocation findInBundle(String bundleName, Locale locale, String key) {
+        ResourceBundle bundle = findResourceBundle(bundleName, locale);
+        if (bundle == null) {
+            return null;
+        }
+
+        reloadBundles();
+
+        try {
+            bundle.getString(key);
+            return new TextLocation(bundleName, key);
+        } catch (MissingResourceException e) {
+            return null;
+        }
+    }
+
     /**
      * Traverse up class hierarchy looking for message.  Looks at class, then implemented interface,
      * before going up hierarchy.
      */
-    private static String findMessage(Class clazz, String key, String indexedKey, Locale locale, Object[] args, Set checked, ValueStack valueStack) {
+    private static TextLocation findMessage(Class clazz, String key, String indexedKey, Locale locale, Set checked) {
         if (checked == null) {
             checked = new TreeSet();
         } else if (checked.contains(clazz.getName())) {
@@ -642,14 +816,14 @@ public class LocalizedTextUtil {
         }
 
         // look in properties of this class
-        String msg = getMessage(clazz.getName(), locale, key, valueStack, args);
+        TextLocation msg = findInBundle(clazz.getName(), locale, key);
 
         if (msg != null) {
             return msg;
         }
 
         if (indexedKey != null) {
-            msg = getMessage(clazz.getName(), locale, indexedKey, valueStack, args);
+            msg = findInBundle(clazz.getName(), locale, indexedKey);
 
             if (msg != null) {
                 return msg;
@@ -660,14 +834,14 @@ public class LocalizedTextUtil {
         Class[] interfaces = clazz.getInterfaces();
 
         for (int x = 0; x < interfaces.length; x++) {
-            msg = getMessage(interfaces[x].getName(), locale, key, valueStack, args);
+            msg = findInBundle(interfaces[x].getName(), locale, key);
 
             if (msg != null) {
                 return msg;
             }
 
             if (indexedKey != null) {
-                msg = getMessage(interfaces[x].getName(), locale, indexedKey, valueStack, args);
+                msg = findInBundle(interfaces[x].getName(), locale, indexedKey);
 
                 if (msg != null) {
                     return msg;
@@ -680,7 +854,7 @@ public class LocalizedTextUtil {
             interfaces = clazz.getInterfaces();
 
             for (int x = 0; x < interfaces.length; x++) {
-                msg = findMessage(interfaces[x], key, indexedKey, locale, args, checked, valueStack);
+                msg = findMessage(interfaces[x], key, indexedKey, locale, checked);
 
                 if (msg != null) {
                     return msg;
@@ -688,7 +862,38 @@ public class LocalizedTextUtil {
             }
         } else {
             if (!clazz.equals(Object.class) && !clazz.isPrimitive()) {
-                return findMessage(clazz.getSuperclass(), key, indexedKey, locale, args, checked, valueStack);
+                return findMessage(clazz.getSuperclass(), key, indexedKey, locale, checked);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Traverse up the package hierarchy of the class and of its superclasses looking for message.
+     */
+    private static TextLocation findPackageMessage(Class aClass, String key, String indexedKey, Locale locale) {
+        for (Class clazz = aClass;
+             (clazz != null) && !clazz.equals(Object.class);
+             clazz = clazz.getSuperclass()) {
+
+            String basePackageName = clazz.getName();
+            while (basePackageName.lastIndexOf('.') != -1) {
+                basePackageName = basePackageName.substring(0, basePackageName.lastIndexOf('.'));
+                String packageName = basePackageName + ".package";
+                TextLocation msg = findInBundle(packageName, locale, key);
+
+                if (msg != null) {
+                    return msg;
+                }
+
+                if (indexedKey != null) {
+                    msg = findInBundle(packageName, locale, indexedKey);
+
+                    if (msg != null) {
+                        return msg;
+                    }
+                }
             }
         }
 
@@ -697,6 +902,7 @@ public class LocalizedTextUtil {
 
     private static void reloadBundles() {
         if (reloadBundles) {
+            clearBundleCaches();
             try {
                 clearMap(ResourceBundle.class, null, "cacheList");
 
@@ -747,18 +953,142 @@ public class LocalizedTextUtil {
 
     }
 
+    /**
+     * Forgets the bundles and the text locations looked up so far. They are kept by class loader and class, so
+     * the caches are cleared whenever the configuration is reloaded or destroyed, which lets go of the class
+     * loader of an application that is redeployed while XWork is loaded by a shared one.
+     */
+    public static void clearBundleCaches() {
+        bundles.clear();
+        textLocations.clear();
+    }
+
     /**
      * Clears all the internal lists. 
      */
     public static void reset() {
         clearDefaultResourceBundles();
 
-        synchronized (misses) {
-            misses.clear();
+        clearBundleCaches();
+        messageFormats.clear();
+        messageTemplates.clear();
+    }
+
+    /**
+     * Key of a looked up resource bundle. Bundles are told apart by class loader, as
+     * {@link ResourceBundle#getBundle(String, Locale, ClassLoader)} does.
+     */
+    static class BundleKey {
+        final String bundleName;
+        final Locale locale;
+        final ClassLoader classLoader;
+        final int hash;
+
+        BundleKey(String bundleName, Locale locale, ClassLoader classLoader) {
+            this.bundleName = bundleName;
+            this.locale = locale;
+            this.classLoader = classLoader;
+            this.hash = 29 * (29 * bundleName.hashCode() + (locale != null ? locale.hashCode() : 0))
+                    + System.identityHashCode(classLoader);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BundleKey)) return false;
+
+            final BundleKey bundleKey = (BundleKey) o;
+
+            return hash == bundleKey.hash && classLoader == bundleKey.classLoader
+                    && bundleName.equals(bundleKey.bundleName)
+                    && (locale != null ? locale.equals(bundleKey.locale) : bundleKey.locale == null);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Key of a located text: the class whose hierarchy, or package hierarchy, was searched for the key.
+     */
+    static class TextKey {
+        final Class clazz;
+        final String key;
+        final Locale locale;
+        final ClassLoader classLoader;
+        final boolean packages;
+        final int hash;
+
+        TextKey(Class clazz, String key, Locale locale, ClassLoader classLoader, boolean packages) {
+            this.clazz = clazz;
+            this.key = key;
+            this.locale = locale;
+            this.classLoader = classLoader;
+            this.packages = packages;
+            int result = 29 * clazz.hashCode() + key.hashCode();
+            result = 29 * result + (locale != null ? locale.hashCode() : 0);
+            result = 29 * result + System.identityHashCode(classLoader);
+            this.hash = packages ? ~result : result;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TextKey)) return false;
+
+            final TextKey textKey = (TextKey) o;
+
+            return hash == textKey.hash && clazz == textKey.clazz && packages == textKey.packages
+                    && classLoader == textKey.classLoader && key.equals(textKey.key)
+                    && (locale != null ? locale.equals(textKey.locale) : textKey.locale == null);
         }
 
-        synchronized (messageFormats) {
-            messageFormats.clear();
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The bundle a text was found in and the key it was found under, which is the indexed form of
+     * the key looked up if only that exists.
+     */
+    static class TextLocation {
+        final String bundleName;
+        final String key;
+
+        TextLocation(String bundleName, String key) {
+            this.bundleName = bundleName;
+            this.key = key;
+        }
+    }
+
+    /**
+     * A message pattern compiled for a locale. Formatters are immutable and may be shared by threads:
+     * a message without arguments is formatted once up front, any other message is formatted by a
+     * copy of the compiled {@link MessageFormat}, which is not thread safe itself.
+     */
+    static class MessageFormatter {
+        private final MessageFormat format;
+        private final String constant;
+
+        MessageFormatter(String pattern, Locale locale) {
+            MessageFormat format = new MessageFormat(pattern);
+            format.setLocale(locale);
+            format.applyPattern(pattern);
+
+            if (format.getFormats().length == 0) {
+                this.format = null;
+                this.constant = format.format(new Object[0]);
+            } else {
+                this.format = format;
+                this.constant = null;
+            }
+        }
+
+        String format(Object[] args) {
+            if (constant != null) {
+                return constant;
+            }
+            return ((MessageFormat) format.clone()).format(args);
         }
     }
 
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * A localized message compiled for a locale. The message is split once into literal text, the
+ * <code>${...}</code> expressions {@link TextParseUtil#translateVariables(String, ValueStack)} evaluates
+ * and the <code>{n}</code> arguments {@link java.text.MessageFormat} fills in, so that rendering only
+ * evaluates the expressions and formats the arguments into one buffer.
+ * <p/>
+ * The result is the same as translating the variables and formatting the outcome. Messages the template
+ * cannot reproduce, such as arguments with a format (<code>{0,number}</code>) or expressions within an
+ * argument, are always rendered that way. So are messages whose expressions evaluate to text that would
+ * itself be taken for message format syntax, except that the values already evaluated are spliced into the
+ * message rather than evaluated again.
+ */
+final class MessageTemplate {
+
+    private static final int LITERAL = 0;
+    private static final int EXPRESSION = 1;
+    private static final int ARGUMENT = 2;
+
+    private final String message;
+    private final Locale locale;
+
+    /**
+     * The kind of every part, or <tt>null</tt> if the message cannot be compiled
+     */
+    private final int[] kinds;
+
+    /**
+     * The text of literal parts and the expression of expression parts
+     */
+    private final String[] texts;
+
+    /**
+     * The argument index of argument parts
+     */
+    private final int[] arguments;
+
+    /**
+     * Expression parts whose value joins the neighbouring text in a way that matters if it is empty:
+     * another expression following at once, or a quote next to it
+     */
+    private final boolean[] sensitiveIfEmpty;
+
+    /**
+     * The length of the message text each expression part is preceded by before variables are translated,
+     * not counting other expressions
+     */
+    private final int[] rawOffsets;
+
+    /**
+     * The raw character following each expression part, or -1 at the end of the message
+     */
+    private final int[] rawFollowers;
+
+    /**
+     * The position of the <code>${</code> of each expression part within the message, or -1
+     */
+    private final int[] rawStarts;
+
+    private final int expressionCount;
+
+    MessageTemplate(String message, Locale locale) {
+        this.message = message;
+        this.locale = locale;
+
+        Compiler compiler = new Compiler();
+        if (locale != null && compiler.compile(message)) {
+            int size = compiler.kinds.size();
+            kinds = new int[size];
+            texts = new String[size];
+            arguments = new int[size];
+            sensitiveIfEmpty = new boolean[size];
+            rawOffsets = new int[size];
+            rawFollowers = new int[size];
+            rawStarts = new int[size];
+            for (int i = 0; i < size; i++) {
+                kinds[i] = compiler.kinds.get(i).intValue();
+                texts[i] = compiler.texts.get(i);
+                arguments[i] = compiler.arguments.get(i).intValue();
+                sensitiveIfEmpty[i] = compiler.sensitiveIfEmpty.get(i).booleanValue();
+                rawOffsets[i] = compiler.rawOffsets.get(i).intValue();
+                rawFollowers[i] = compiler.rawFollowers.get(i).intValue();
+                rawStarts[i] = compiler.rawStarts.get(i).intValue();
+            }
+            expressionCount = compiler.expressionCount;
+        } else {
+            kinds = null;
+            texts = null;
+            arguments = null;
+            sensitiveIfEmpty = null;
+            rawOffsets = null;
+            rawFollowers = null;
+            rawStarts = null;
+            expressionCount = 0;
+        }
+    }
+
+    /**
+     * Translates the variables of the message against the value stack and formats the arguments into it.
+     */
+    String render(ValueStack valueStack, Object[] args) {
+        if (kinds == null) {
+            return renderTranslated(valueStack, args);
+        }
+
+        String[] values = null;
+        if (expressionCount > 0) {
+            values = new String[kinds.length];
+            int translatedLength = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                if (kinds[i] != EXPRESSION) {
+                    continue;
+                }
+
+                String value = evaluate(valueStack, texts[i]);
+                values[i] = value;
+                boolean leading = (translatedLength + rawOffsets[i]) == 0;
+                if (!isInert(value, rawFollowers[i]) || (value.length() == 0 && (sensitiveIfEmpty[i] || leading))) {
+                    return renderSpliced(valueStack, args, values);
+                }
+                translatedLength += value.length();
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(message.length() + 16);
+        for (int i = 0; i < kinds.length; i++) {
+            switch (kinds[i]) {
+                case LITERAL:
+                    sb.append(texts[i]);
+                    break;
+                case EXPRESSION:
+                    sb.append(values[i]);
+                    break;
+                default:
+                    appendArgument(sb, arguments[i], args);
+            }
+        }
+        return sb.toString();
+    }
+
+    private String renderTranslated(ValueStack valueStack, Object[] args) {
+        String translated = TextParseUtil.translateVariables(message, valueStack);
+        return LocalizedTextUtil.buildMessageFormat(translated, locale).format(args);
+    }
+
+    private static String evaluate(ValueStack valueStack, String expression) {
+        Object o = valueStack.findValue(expression, String.class);
+        return (o != null) ? o.toString() : "";
+    }
+
+    /**
+     * Translates the variables the way {@link TextParseUtil#translateVariables(String, ValueStack)} does and
+     * formats the outcome. The expressions of the message are taken from the values evaluated so far, or
+     * evaluated once when first reached; only variables formed by the values spliced into the message are
+     * evaluated as they are.
+     */
+    private String renderSpliced(ValueStack valueStack, Object[] args, String[] values) {
+        String expression = message;
+        // the rest of the expression from suffixStart on is still the message from rawSuffixStart on
+        int suffixStart = 0;
+        int rawSuffixStart = 0;
+        int pos = 0;
+        while (true) {
+            int start = expression.indexOf("${", pos);
+            if (start == -1) {
+                break;
+            }
+            int length = expression.length();
+            int x = start + 2;
+            int count = 1;
+            while (x < length && count != 0) {
+                char c = expression.charAt(x++);
+                if (c == '{') {
+                    count++;
+                } else if (c == '}') {
+                    count--;
+                }
+            }
+            if (count != 0) {
+                break;
+            }
+            int end = x - 1;
+
+            int part = (start >= suffixStart) ? findExpression(start - suffixStart + rawSuffixStart) : -1;
+            String middle;
+            if (part == -1) {
+                middle = evaluate(valueStack, expression.substring(start + 2, end));
+            } else {
+                if (values[part] == null) {
+                    values[part] = evaluate(valueStack, texts[part]);
+                }
+                middle = values[part];
+            }
+
+            String left = expression.substring(0, start);
+            String right = expression.substring(end + 1);
+            if (end + 1 >= suffixStart) {
+                rawSuffixStart += end + 1 - suffixStart;
+                suffixStart = left.length() + middle.length();
+            } else {
+                suffixStart += middle.length() - (end + 1 - start);
+            }
+            expression = left + middle + right;
+
+            pos = (left.length() > 0 ? left.length() - 1 : 0) + (middle.length() > 0 ? middle.length() - 1 : 0) + 1;
+            pos = Math.max(pos, 1);
+        }
+
+        return LocalizedTextUtil.buildMessageFormat(expression, locale).format(args);
+    }
+
+    /**
+     * @return the expression part starting at the given position of the message, or -1 if there is none
+     */
+    private int findExpression(int rawStart) {
+        for (int i = 0; i < rawStarts.length; i++) {
+            if (rawStarts[i] == rawStart && kinds[i] == EXPRESSION) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the value of an expression reads as plain text once translated into the message.
+     */
+    private static boolean isInert(String value, int follower) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'' || c == '{' || c == '}') {
+                return false;
+            }
+        }
+        // a trailing $ followed by { would start another variable
+        return !(follower == '{' && value.length() > 0 && value.charAt(value.length() - 1) == '$');
+    }
+
+    /**
+     * Formats an argument the way {@link java.text.MessageFormat} formats an argument without a format.
+     */
+    private void appendArgument(StringBuilder sb, int index, Object[] args) {
+        if (args == null || index >= args.length) {
+            sb.append('{').append(index).append('}');
+            return;
+        }
+
+        Object arg = args[index];
+        if (arg == null) {
+            sb.append("null");
+        } else if (arg instanceof Number) {
+            sb.append(NumberFormat.getInstance(locale).format(arg));
+        } else if (arg instanceof Date) {
+            sb.append(DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale).format(arg));
+        } else if (arg instanceof String) {
+            sb.append((String) arg);
+        } else {
+            String text = arg.toString();
+            sb.append((text != null) ? text : "null");
+        }
+    }
+
+    /**
+     * Splits a message into its parts, finding the variables the way
+     * {@link TextParseUtil#translateVariables(String, ValueStack)} does and reading the rest the way
+     * {@link java.text.MessageFormat#applyPattern(String)} does.
+     */
+    private static class Compiler {
+        final List<Integer> kinds = new ArrayList<Integer>();
+        final List<String> texts = new ArrayList<String>();
+        final List<Integer> arguments = new ArrayList<Integer>();
+        final List<Boolean> sensitiveIfEmpty = new ArrayList<Boolean>();
+        final List<Integer> rawOffsets = new ArrayList<Integer>();
+        final List<Integer> rawFollowers = new ArrayList<Integer>();
+        final List<Integer> rawStarts = new ArrayList<Integer>();
+        int expressionCount;
+
+        private final StringBuilder literal = new StringBuilder();
+        private boolean inQuote;
+        private int rawLength;
+
+        boolean compile(String message) {
+            int pos = 0;
+            while (true) {
+                int start = message.indexOf("${", pos);
+                int end = -1;
+                if (start != -1) {
+                    int count = 1;
+                    int x = start + 2;
+                    while (x < message.length() && count != 0) {
+                        char c = message.charAt(x++);
+                        if (c == '{') {
+                            count++;
+                        } else if (c == '}') {
+                            count--;
+                        }
+                    }
+                    if (count == 0) {
+                        end = x - 1;
+                    }
+                }
+
+                if (end == -1) {
+                    // no more variables, the rest is left as it is
+                    if (!addFormatText(message.substring(pos))) {
+                        return false;
+                    }
+                    flushLiteral();
+                    return true;
+                }
+
+                String before = message.substring(pos, start);
+                if (!addFormatText(before)) {
+                    return false;
+                }
+                flushLiteral();
+
+                boolean quoteBefore = before.endsWith("'") || (before.length() == 0 && lastIsQuoteSensitive());
+                boolean expressionFollows = message.startsWith("${", end + 1);
+                boolean quoteAfter = message.startsWith("'", end + 1);
+                add(EXPRESSION, message.substring(start + 2, end), -1,
+                        quoteBefore || quoteAfter || expressionFollows,
+                        rawLength, (end + 1 < message.length()) ? message.charAt(end + 1) : -1, start);
+                expressionCount++;
+                pos = end + 1;
+            }
+        }
+
+        private boolean lastIsQuoteSensitive() {
+            int last = kinds.size() - 1;
+            return last >= 0 && kinds.get(last).intValue() == EXPRESSION && sensitiveIfEmpty.get(last).booleanValue();
+        }
+
+        /**
+         * Reads message format text, which may not leave an argument open.
+         */
+        private boolean addFormatText(String text) {
+            rawLength += text.length();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\'') {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '\'') {
+                        literal.append('\'');
+                        i++;
+                    } else {
+                        inQuote = !inQuote;
+                    }
+                } else if (c == '{' && !inQuote) {
+                    int close = text.indexOf('}', i + 1);
+                    if (close == -1) {
+                        return false;
+                    }
+                    String index = text.substring(i + 1, close);
+                    if (index.length() == 0 || index.length() > 9) {
+                        return false;
+                    }
+                    for (int j = 0; j < index.length(); j++) {
+                        if (index.charAt(j) < '0' || index.charAt(j) > '9') {
+                            return false;
+                        }
+                    }
+                    flushLiteral();
+                    add(ARGUMENT, null, Integer.parseInt(index), false, 0, -1, -1);
+                    i = close;
+                } else {
+                    literal.append(c);
+                }
+            }
+            return true;
+        }
+
+        private void flushLiteral() {
+            if (literal.length() > 0) {
+                add(LITERAL, literal.toString(), -1, false, 0, -1, -1);
+                literal.setLength(0);
+            }
+        }
+
+        private void add(int kind, String text, int argument, boolean sensitive, int rawOffset, int rawFollower,
+                         int rawStart) {
+            kinds.add(new Integer(kind));
+            texts.add(text);
+            arguments.add(new Integer(argument));
+            sensitiveIfEmpty.add(Boolean.valueOf(sensitive));
+            rawOffsets.add(new Integer(rawOffset));
+            rawFollowers.add(new Integer(rawFollower));
+            rawStarts.add(new Integer(rawStart));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * Public methods without arguments, such as action methods, looked up by class and name once. Methods
+ * a class does not have are remembered as well, so that asking for them again is a cache hit instead of
+ * a {@link NoSuchMethodException}.
+ * <p/>
+ * Method names may come from the request, so entries weigh the length of their name and the total weight is
+ * bounded as well as the number of entries. The cache holds on to the classes it has seen, and through them
+ * to their class loaders, until it is cleared when the configuration is reloaded or destroyed.
+ */
+public class NoArgMethodCache {
+
+    /**
+     * The arguments to invoke a method without arguments with
+     */
+    public static final Object[] NO_ARGS = new Object[0];
+
+    private static final Class[] NO_PARAMETERS = new Class[0];
+    private static final Object NO_METHOD = new Object();
+
+    private static final int MAX_METHODS = 10000;
+
+    private static final BoundedCache<MethodKey, Object> methods =
+            new BoundedCache<MethodKey, Object>(MAX_METHODS, 32L * MAX_METHODS) {
+                protected int weigh(MethodKey key, Object method) {
+                    return key.name.length();
+                }
+            };
+
+    /**
+     * @return the public method of the class with the given name and no parameters, or <tt>null</tt>
+     *         if there is none
+     */
+    public static Method getMethod(Class clazz, String name) {
+        MethodKey key = new MethodKey(clazz, name);
+        Object method = methods.get(key);
+        if (method == null) {
+            try {
+                method = clazz.getMethod(name, NO_PARAMETERS);
+            } catch (NoSuchMethodException e) {
+                method = NO_METHOD;
+            }
+            method = methods.putIfAbsent(key, method);
+        }
+        return (method == NO_METHOD) ? null : (Method) method;
+    }
+
+    /**
+     * Forgets every method looked up.
+     */
+    public static void clear() {
+        methods.clear();
+    }
+
+    private static final class MethodKey {
+        private final Class clazz;
+        private final String name;
+        private final int hash;
+
+        MethodKey(Class clazz, String name) {
+            this.clazz = clazz;
+            this.name = name;
+            this.hash = 31 * clazz.hashCode() + name.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            return clazz == other.clazz && name.equals(other.name);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.opensymphony.xwork2.XWorkException;
+import com.opensymphony.xwork2.inject.Inject;
 
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
@@ -33,10 +34,41 @@ import java.util.Map;
 public class OgnlUtil {
 
     private static final Log log = LogFactory.getLog(OgnlUtil.class);
-    private static HashMap expressions = new HashMap();
+    private static final int DEFAULT_EXPRESSION_CACHE_MAX_SIZE = 10000;
+
+    /**
+     * Parsed expressions keyed by their source. Bounded so that clients sending ever new
+     * parameter names cannot grow it without limit; an expression weighs its source length.
+     */
+    private static final BoundedCache<String, Object> expressions =
+            new BoundedCache<String, Object>(DEFAULT_EXPRESSION_CACHE_MAX_SIZE) {
+                protected int weigh(String expression, Object tree) {
+                    return expression.length();
+                }
+            };
     private static HashMap beanInfoCache = new HashMap();
 
 
+    @Inject(value = "ognl.expressionCacheMaxSize", required = false)
+    public static void setExpressionCacheMaxSize(String maxSize) {
+        expressions.setMaxEntries(Integer.parseInt(maxSize));
+    }
+
+    /**
+     * Limits the summed length of all cached expression sources.
+     */
+    @Inject(value = "ognl.expressionCacheMaxWeight", required = false)
+    public static void setExpressionCacheMaxWeight(String maxWeight) {
+        expressions.setMaxWeight(Long.parseLong(maxWeight));
+    }
+
+    /**
+     * Gives access to the parsed expression cache, mostly for its hit, miss and eviction counts.
+     */
+    public static BoundedCache<String, Object> getExpressionCache() {
+        return expressions;
+    }
+
     /**
      * Sets the object's properties using the default type converter, defaulting to not throw
      * exceptions for problems setting the properties.
@@ -196,16 +228,14 @@ public class OgnlUtil {
 
 
     public static Object compile(String expression) throws OgnlException {
-        synchronized (expressions) {
-            Object o = expressions.get(expression);
-
-            if (o == null) {
-                o = Ognl.parseExpression(expression);
-                expressions.put(expression, o);
-            }
+        Object o = expressions.get(expression);
 
-            return o;
+        if (o == null) {
+            // parsing twice on a race is cheaper than making every reader wait for the parser
+            o = expressions.putIfAbsent(expression, Ognl.parseExpression(expression));
         }
+
+        return o;
     }
 
     /**
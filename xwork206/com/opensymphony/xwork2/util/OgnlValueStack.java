@@ -6,6 +6,7 @@ package com.opensymphony.xwork2.util;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -70,14 +71,21 @@ public class OgnlValueStack implements Serializable, ValueStack, ClearableValueS
     public static class ObjectAccessor extends ObjectPropertyAccessor {
         public Object getProperty(Map map, Object o, Object o1) throws OgnlException {
             Object obj = super.getProperty(map, o, o1);
-            link(map, o.getClass(), (String) o1);
-
-            map.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, o.getClass());
-            map.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, o1.toString());
-            OgnlContextState.updateCurrentPropertyPath(map, o1);
+            propertyAccessed(map, o.getClass(), (String) o1);
             return obj;
         }
 
+        /**
+         * Records the bean property just read in the context, where type conversion looks it up.
+         */
+        static void propertyAccessed(Map map, Class clazz, String name) {
+            link(map, clazz, name);
+
+            map.put(XWorkConverter.LAST_BEAN_CLASS_ACCESSED, clazz);
+            map.put(XWorkConverter.LAST_BEAN_PROPERTY_ACCESSED, name);
+            OgnlContextState.updateCurrentPropertyPath(map, name);
+        }
+
         public void setProperty(Map map, Object o, Object o1, Object o2) throws OgnlException {
             super.setProperty(map, o, o1, o2);
         }
@@ -114,6 +122,15 @@ public class OgnlValueStack implements Serializable, ValueStack, ClearableValueS
         devMode = "true".equals(mode);
     }
 
+    /**
+     * Sets how many times a plain property chain is evaluated before its getters are resolved once
+     * and called directly. Zero turns this off.
+     */
+    @Inject(value = "ognl.compileThreshold", required = false)
+    public static void setCompileThreshold(String threshold) {
+        CompiledPropertyChain.setCompileThreshold(Integer.parseInt(threshold));
+    }
+
     @Inject(value="allowStaticMethodAccess", required=false)
     public static void setAllowStaticMethodAccess(boolean allowStaticMethodAccess) {
         OgnlValueStack.allowStaticMethodAccess = allowStaticMethodAccess;
@@ -225,7 +242,7 @@ public class OgnlValueStack implements Serializable, ValueStack, ClearableValueS
                 return findValue(expr, defaultType);
             }
 
-            Object value = OgnlUtil.getValue(expr, context, root);
+            Object value = getValue(expr, null);
             if (value != null) {
                 return value;
             } else {
@@ -255,7 +272,7 @@ public class OgnlValueStack implements Serializable, ValueStack, ClearableValueS
                 expr = (String) overrides.get(expr);
             }
 
-            Object value = OgnlUtil.getValue(expr, context, root, asType);
+            Object value = getValue(expr, asType);
             if (value != null) {
                 return value;
             } else {
@@ -272,6 +289,19 @@ public class OgnlValueStack implements Serializable, ValueStack, ClearableValueS
         }
     }
 
+    private Object getValue(String expr, Class asType) throws OgnlException {
+        CompiledPropertyChain chain = CompiledPropertyChain.forExpression(expr);
+        if (chain == null) {
+            return OgnlUtil.getValue(expr, context, root, asType);
+        }
+
+        Object value = chain.getValue(context, root);
+        if (asType != null) {
+            value = Ognl.getTypeConverter(context).convertValue(context, root, null, null, value, asType);
+        }
+        return value;
+    }
+
     private Object findInContext(String name) {
         return getContext().get(name);
     }
@@ -366,6 +396,35 @@ public class OgnlValueStack implements Serializable, ValueStack, ClearableValueS
         ((OgnlContext) context).setKeepLastEvaluation(false);
     }
 
+    /**
+     * Brings this stack back to the state of <code>new OgnlValueStack(vs)</code>, or of an empty stack
+     * if <tt>vs</tt> is <tt>null</tt>, while keeping its root and context instances. Context values,
+     * expression overrides, the default type and the accept and exclude patterns are all dropped.
+     *
+     * @param vs the stack whose objects this one should hold, or <tt>null</tt>
+     */
+    public void resetStack(ValueStack vs) {
+        root.clear();
+        if (vs != null) {
+            root.addAll(vs.getRoot());
+        }
+
+        defaultType = null;
+        overrides = null;
+
+        securityMemberAccess.setAllowStaticMethodAccess(allowStaticMethodAccess);
+        securityMemberAccess.setAcceptProperties(Collections.<Pattern>emptySet());
+        securityMemberAccess.setExcludeProperties(Collections.<Pattern>emptySet());
+
+        OgnlContext ognlContext = (OgnlContext) context;
+        ognlContext.getValues().clear();
+        ognlContext.setRoot(root);
+        ognlContext.setCurrentObject(null);
+        ognlContext.setCurrentNode(null);
+        ognlContext.setLastEvaluation(null);
+        context.put(VALUE_STACK, this);
+    }
+
     private Object readResolve() {
         OgnlValueStack aStack = new OgnlValueStack();
         aStack.setRoot(this.root);
@@ -5,10 +5,13 @@
 package com.opensymphony.xwork2.util;
 
 /**
- * Creates an Ognl value stack
+ * Creates an Ognl value stack. Each thread keeps one released stack around and resets it for its
+ * next {@link #borrowValueStack(ValueStack)} instead of creating a new stack and OGNL context.
  */
 public class OgnlValueStackFactory extends ValueStackFactory {
 
+    private final ThreadLocal<OgnlValueStack> released = new ThreadLocal<OgnlValueStack>();
+
     @Override
     public ValueStack createValueStack() {
         return new OgnlValueStack();
@@ -19,4 +22,27 @@ public class OgnlValueStackFactory extends ValueStackFactory {
         return new OgnlValueStack(stack);
     }
 
+    @Override
+    public ValueStack borrowValueStack(ValueStack stack) {
+        OgnlValueStack recycled = released.get();
+        if (recycled == null) {
+            // none released yet, or it is already in use further up this thread's call stack
+            return createValueStack(stack);
+        }
+
+        released.set(null);
+        recycled.resetStack(stack);
+        return recycled;
+    }
+
+    @Override
+    public void releaseValueStack(ValueStack stack) {
+        if (stack instanceof OgnlValueStack) {
+            OgnlValueStack recycled = (OgnlValueStack) stack;
+            // let go of the request's objects right away
+            recycled.resetStack(null);
+            released.set(recycled);
+        }
+    }
+
 }
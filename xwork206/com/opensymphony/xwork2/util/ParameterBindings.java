@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import com.opensymphony.xwork2.XWorkException;
+
+import ognl.DefaultMemberAccess;
+import ognl.MemberAccess;
+import ognl.Ognl;
+import ognl.OgnlRuntime;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Configured parameters resolved once against the class of the objects they are set on, such as results.
+ * <p/>
+ * A parameter naming a public property whose setter takes the configured value as it is, without
+ * conversion, is set by calling the setter. Every other parameter is set through OGNL, exactly as
+ * {@link OgnlUtil#setProperties(Map, Object, Map, boolean)} sets it, and so is any parameter the member access
+ * of the context might not allow.
+ */
+public class ParameterBindings {
+
+    /**
+     * Names OGNL reads as operators or literals rather than as properties
+     */
+    private static final Set<String> KEYWORDS = new HashSet<String>(Arrays.asList(new String[]{
+            "or", "and", "not", "in", "instanceof", "new", "true", "false", "null",
+            "shl", "shr", "ushr", "bor", "xor", "band", "eq", "neq", "lt", "gt", "lte", "gte"}));
+
+    private final Class type;
+    private final String[] names;
+    private final Object[] values;
+    private final Method[] setters;
+
+    private ParameterBindings(Class type, String[] names, Object[] values, Method[] setters) {
+        this.type = type;
+        this.names = names;
+        this.values = values;
+        this.setters = setters;
+    }
+
+    /**
+     * Resolves the parameters against the class.
+     *
+     * @param type   the class of the objects the parameters are set on
+     * @param params the parameters, mapping property names or OGNL expressions to values
+     */
+    public static ParameterBindings resolve(Class type, Map params) {
+        String[] names = new String[params.size()];
+        Object[] values = new Object[names.length];
+        Method[] setters = new Method[names.length];
+        int i = 0;
+        for (Iterator iterator = params.entrySet().iterator(); iterator.hasNext(); i++) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            names[i] = (String) entry.getKey();
+            values[i] = entry.getValue();
+            setters[i] = findSetter(type, names[i], values[i]);
+        }
+        return new ParameterBindings(type, names, values, setters);
+    }
+
+    private static Method findSetter(Class type, String name, Object value) {
+        if (value == null || !isPropertyName(name)) {
+            return null;
+        }
+
+        try {
+            PropertyDescriptor descriptor = OgnlRuntime.getPropertyDescriptor(type, name);
+            if (descriptor == null || descriptor.getClass() != PropertyDescriptor.class) {
+                return null;
+            }
+            Method setter = descriptor.getWriteMethod();
+            if (setter == null || !Modifier.isPublic(setter.getModifiers())
+                    || !Modifier.isPublic(setter.getDeclaringClass().getModifiers())
+                    || !setter.getParameterTypes()[0].isInstance(value)) {
+                return null;
+            }
+            return setter;
+        } catch (Exception e) {
+            // left to OGNL, which reports the problem when the parameter is set
+            return null;
+        }
+    }
+
+    private static boolean isPropertyName(String name) {
+        if (name == null || name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return !KEYWORDS.contains(name);
+    }
+
+    /**
+     * @return <tt>true</tt> if the parameters were resolved against the given class
+     */
+    public boolean isFor(Class type) {
+        return this.type == type;
+    }
+
+    /**
+     * Sets the parameters on the object, in the order they were configured in.
+     *
+     * @param o       the object, of the class the parameters were resolved against
+     * @param context the OGNL context to set them in
+     * @throws XWorkException if a parameter cannot be set, as {@link OgnlUtil#setProperties(Map, Object, Map, boolean)}
+     *                        throws it when told to throw property exceptions
+     */
+    public void apply(Object o, Map context) {
+        Ognl.setTypeConverter(context, XWorkConverter.getInstance());
+        MemberAccess memberAccess = Ognl.getMemberAccess(context);
+
+        for (int i = 0; i < names.length; i++) {
+            if (setters[i] != null && isAccessible(memberAccess, names[i])) {
+                try {
+                    setters[i].invoke(o, new Object[]{values[i]});
+                } catch (InvocationTargetException e) {
+                    throw new XWorkException(getMessage(names[i], o), e.getTargetException());
+                } catch (IllegalAccessException e) {
+                    throw new XWorkException(getMessage(names[i], o), e);
+                }
+            } else {
+                Object oldRoot = Ognl.getRoot(context);
+                Ognl.setRoot(context, o);
+                try {
+                    OgnlUtil.internalSetProperty(names[i], values[i], o, context, true);
+                } finally {
+                    Ognl.setRoot(context, oldRoot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether OGNL would call a public setter for the property with the member access in effect
+     */
+    private static boolean isAccessible(MemberAccess memberAccess, String name) {
+        if (memberAccess == null || memberAccess.getClass() == DefaultMemberAccess.class) {
+            return true;
+        }
+        if (memberAccess instanceof SecurityMemberAccess) {
+            return ((SecurityMemberAccess) memberAccess).isAcceptableProperty(name);
+        }
+        return false;
+    }
+
+    private static String getMessage(String name, Object o) {
+        return "Caught OgnlException while setting property '" + name + "' on type '" + o.getClass().getName() + "'.";
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+
+/**
+ * Accepts or excludes property and parameter names by regular expression.
+ * <p/>
+ * The accept patterns and the exclude patterns are each merged into a single alternation, so a name is
+ * matched at most twice however many patterns are configured, and the outcome is remembered per name.
+ * Patterns that cannot take part in an alternation (back references, quoting, named groups, comments, flags
+ * that cannot be embedded) are tried one by one instead, and so are all patterns if their alternation does
+ * not compile. A name is accepted when there are no accept patterns or one of them
+ * matches it.
+ * <p/>
+ * Filters are immutable and keep copies of the patterns they were created with, so changing a set of
+ * patterns afterwards does not change a filter. {@link #forPatterns(Set, Set)} hands out one shared filter
+ * per pair of pattern sets.
+ */
+public final class PropertyNameFilter {
+
+    /**
+     * Accepts every name and excludes none.
+     */
+    public static final PropertyNameFilter ACCEPT_ALL =
+            new PropertyNameFilter(Collections.<Pattern>emptySet(), Collections.<Pattern>emptySet());
+
+    private static final int ACCEPTED = 1;
+    private static final int EXCLUDED = 2;
+    private static final Integer[] VERDICTS = {0, ACCEPTED, EXCLUDED, ACCEPTED | EXCLUDED};
+    /**
+     * Back references, quotes that may run past the pattern, named groups and inline comment flags, none of
+     * which survive being joined with other patterns
+     */
+    private static final Pattern UNMERGEABLE = Pattern.compile("\\\\[1-9]|\\\\k<|\\\\Q|\\(\\?<|\\(\\?[a-zA-Z]*x");
+    private static final int EMBEDDABLE_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL
+            | Pattern.UNICODE_CASE | Pattern.UNIX_LINES;
+
+    private static final BoundedCache<PatternSets, PropertyNameFilter> filters =
+            new BoundedCache<PatternSets, PropertyNameFilter>(1000);
+
+    private final Matcher accept;
+    private final Matcher exclude;
+    private final BoundedCache<String, Integer> verdicts = new BoundedCache<String, Integer>(10000);
+
+    /**
+     * Creates a filter of its own; see {@link #forPatterns(Set, Set)} for a shared one.
+     *
+     * @param acceptPatterns  the patterns a name has to match one of, or none to accept any name
+     * @param excludePatterns the patterns excluding the names they match
+     */
+    public PropertyNameFilter(Set<Pattern> acceptPatterns, Set<Pattern> excludePatterns) {
+        this.accept = Matcher.create(acceptPatterns);
+        this.exclude = Matcher.create(excludePatterns);
+    }
+
+    /**
+     * Returns the shared filter for the given sets of patterns.
+     */
+    public static PropertyNameFilter forPatterns(Set<Pattern> acceptPatterns, Set<Pattern> excludePatterns) {
+        if (acceptPatterns.isEmpty() && excludePatterns.isEmpty()) {
+            return ACCEPT_ALL;
+        }
+
+        PropertyNameFilter filter = filters.get(new PatternSets(acceptPatterns, excludePatterns));
+        if (filter == null) {
+            PatternSets key = new PatternSets(Collections.unmodifiableSet(new HashSet<Pattern>(acceptPatterns)),
+                    Collections.unmodifiableSet(new HashSet<Pattern>(excludePatterns)));
+            filter = filters.putIfAbsent(key, new PropertyNameFilter(key.accept, key.exclude));
+        }
+        return filter;
+    }
+
+    /**
+     * @return <tt>true</tt> if the name is accepted and not excluded
+     */
+    public boolean isAcceptable(String name) {
+        return getVerdict(name) == ACCEPTED;
+    }
+
+    public boolean isAccepted(String name) {
+        return (getVerdict(name) & ACCEPTED) != 0;
+    }
+
+    public boolean isExcluded(String name) {
+        return (getVerdict(name) & EXCLUDED) != 0;
+    }
+
+    private int getVerdict(String name) {
+        if (this == ACCEPT_ALL) {
+            return ACCEPTED;
+        }
+
+        Integer verdict = verdicts.get(name);
+        if (verdict == null) {
+            int flags = 0;
+            if (accept == null || accept.matches(name)) {
+                flags |= ACCEPTED;
+            }
+            if (exclude != null && exclude.matches(name)) {
+                flags |= EXCLUDED;
+            }
+            verdict = verdicts.putIfAbsent(name, VERDICTS[flags]);
+        }
+        return verdict.intValue();
+    }
+
+    /**
+     * Matches names against a set of patterns, merged into one where possible.
+     */
+    private static final class Matcher {
+        private final Pattern merged;
+        private final Pattern[] separate;
+
+        private Matcher(Pattern merged, Pattern[] separate) {
+            this.merged = merged;
+            this.separate = separate;
+        }
+
+        /**
+         * @return a matcher for the patterns, or <tt>null</tt> if there are none
+         */
+        static Matcher create(Set<Pattern> patterns) {
+            if (patterns.isEmpty()) {
+                return null;
+            }
+
+            StringBuffer alternation = new StringBuffer();
+            Pattern[] separate = new Pattern[patterns.size()];
+            int separateCount = 0;
+            for (Iterator<Pattern> iterator = patterns.iterator(); iterator.hasNext();) {
+                Pattern pattern = iterator.next();
+                if ((pattern.flags() & ~EMBEDDABLE_FLAGS) != 0 || UNMERGEABLE.matcher(pattern.pattern()).find()) {
+                    separate[separateCount++] = pattern;
+                    continue;
+                }
+
+                if (alternation.length() > 0) {
+                    alternation.append('|');
+                }
+                alternation.append("(?").append(embeddedFlags(pattern.flags())).append(':')
+                        .append(pattern.pattern()).append(')');
+            }
+
+            Pattern merged = null;
+            if (alternation.length() > 0) {
+                try {
+                    merged = Pattern.compile(alternation.toString());
+                } catch (RuntimeException e) {
+                    // the patterns do not go together, so match each of them on its own
+                    separateCount = 0;
+                    for (Iterator<Pattern> iterator = patterns.iterator(); iterator.hasNext();) {
+                        separate[separateCount++] = iterator.next();
+                    }
+                }
+            }
+            Pattern[] rest = new Pattern[separateCount];
+            System.arraycopy(separate, 0, rest, 0, separateCount);
+            return new Matcher(merged, rest);
+        }
+
+        private static String embeddedFlags(int flags) {
+            StringBuffer sb = new StringBuffer();
+            if ((flags & Pattern.CASE_INSENSITIVE) != 0) sb.append('i');
+            if ((flags & Pattern.MULTILINE) != 0) sb.append('m');
+            if ((flags & Pattern.DOTALL) != 0) sb.append('s');
+            if ((flags & Pattern.UNICODE_CASE) != 0) sb.append('u');
+            if ((flags & Pattern.UNIX_LINES) != 0) sb.append('d');
+            return sb.toString();
+        }
+
+        boolean matches(String name) {
+            if (merged != null && merged.matcher(name).matches()) {
+                return true;
+            }
+            for (int i = 0; i < separate.length; i++) {
+                if (separate[i].matcher(name).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Key of a shared filter. Patterns compare by identity, so equal sets hold the very same patterns. Keys
+     * stored in the cache hold copies of the sets; the caller's own sets are only used to look a filter up.
+     */
+    private static final class PatternSets {
+        private final Set<Pattern> accept;
+        private final Set<Pattern> exclude;
+        private final int hash;
+
+        PatternSets(Set<Pattern> accept, Set<Pattern> exclude) {
+            this.accept = accept;
+            this.exclude = exclude;
+            this.hash = 31 * accept.hashCode() + exclude.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PatternSets)) {
+                return false;
+            }
+
+            PatternSets other = (PatternSets) obj;
+            return hash == other.hash && accept.equals(other.accept) && exclude.equals(other.exclude);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
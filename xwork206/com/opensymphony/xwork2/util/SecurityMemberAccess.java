@@ -10,9 +10,9 @@ import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -24,6 +24,7 @@ public class SecurityMemberAccess extends DefaultMemberAccess {
     private boolean allowStaticMethodAccess;
     Set<Pattern> excludeProperties = Collections.emptySet();
     Set<Pattern> acceptProperties = Collections.emptySet();
+    private volatile PropertyNameFilter nameFilter = PropertyNameFilter.ACCEPT_ALL;
 
     public SecurityMemberAccess(boolean method) {
         super(false);
@@ -75,39 +76,33 @@ public class SecurityMemberAccess extends DefaultMemberAccess {
     }
 
     protected boolean isAccepted(String paramName) {
-        if (!this.acceptProperties.isEmpty()) {
-            for (Pattern pattern : acceptProperties) {
-                Matcher matcher = pattern.matcher(paramName);
-                if (matcher.matches()) {
-                    return true;
-                }
-            }
-
-            //no match, but acceptedParams is not empty
-            return false;
-        }
-
-        //empty acceptedParams
-        return true;
+        return getNameFilter().isAccepted(paramName);
     }
 
     protected boolean isExcluded(String paramName) {
-        if (!this.excludeProperties.isEmpty()) {
-            for (Pattern pattern : excludeProperties) {
-                Matcher matcher = pattern.matcher(paramName);
-                if (matcher.matches()) {
-                    return true;
-                }
-            }
+        return getNameFilter().isExcluded(paramName);
+    }
+
+    /**
+     * Returns the filter compiled from the current accept and exclude patterns, shared with every
+     * other member access configured with the same pattern sets.
+     */
+    private PropertyNameFilter getNameFilter() {
+        PropertyNameFilter filter = nameFilter;
+        if (filter == null) {
+            filter = PropertyNameFilter.forPatterns(acceptProperties, excludeProperties);
+            nameFilter = filter;
         }
-        return false;
+        return filter;
     }
 
     public void setExcludeProperties(Set<Pattern> excludeProperties) {
-        this.excludeProperties = excludeProperties;
+        this.excludeProperties = Collections.unmodifiableSet(new HashSet<Pattern>(excludeProperties));
+        this.nameFilter = null;
     }
 
     public void setAcceptProperties(Set<Pattern> acceptedProperties) {
-        this.acceptProperties = acceptedProperties;
+        this.acceptProperties = Collections.unmodifiableSet(new HashSet<Pattern>(acceptedProperties));
+        this.nameFilter = null;
     }
 }
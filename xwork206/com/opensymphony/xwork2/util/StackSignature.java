@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2002-2006 by OpenSymphony
+ * All rights reserved.
+ */
+package com.opensymphony.xwork2.util;
+
+import ognl.OgnlContext;
+import ognl.OgnlException;
+import ognl.OgnlRuntime;
+
+import java.beans.IntrospectionException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * The classes of the objects on a {@link CompoundRoot}, top first, together with the stack depths
+ * that answered property lookups for stacks of this shape.
+ * <p/>
+ * Whether an object has a readable or writable property only depends on its class, so the depth found
+ * once holds for every stack of the same shape. Maps are the exception when reading: they also answer
+ * for the keys they contain, so the Maps above the resolved depth are remembered and asked again on
+ * every lookup.
+ * <p/>
+ * Signatures are shared between stacks; {@link CompoundRoot} keeps the ones matching its elements as it
+ * pushes and pops, and works its signature out again after any other change. The signature a push leads to
+ * is remembered per pushed class, so pushing and popping the same objects again allocates nothing.
+ */
+final class StackSignature {
+
+    private static final int MAX_SIGNATURES = 1000;
+    private static final int MAX_PROPERTIES = 512;
+    private static final int MAX_PUSHED = 32;
+    private static final Object NULL_CLASS = new Object();
+    private static final int[] NO_INDEXES = new int[0];
+
+    private static final BoundedCache<StackSignature, StackSignature> signatures =
+            new BoundedCache<StackSignature, StackSignature>(MAX_SIGNATURES);
+
+    private final Class[] classes;
+    private final boolean allowStaticMethodAccess;
+    private final int hashCode;
+
+    private final BoundedCache<String, Getter> getters = new BoundedCache<String, Getter>(MAX_PROPERTIES);
+    private final BoundedCache<String, Setter> setters = new BoundedCache<String, Setter>(MAX_PROPERTIES);
+
+    /**
+     * The signatures of this stack with an object of the key's class pushed on top
+     */
+    private final ConcurrentHashMap<Object, StackSignature> pushed = new ConcurrentHashMap<Object, StackSignature>();
+
+    private StackSignature(Class[] classes, boolean allowStaticMethodAccess) {
+        this.classes = classes;
+        this.allowStaticMethodAccess = allowStaticMethodAccess;
+        this.hashCode = 31 * Arrays.hashCode(classes) + (allowStaticMethodAccess ? 1 : 0);
+    }
+
+    /**
+     * Returns the shared signature of the given stack.
+     */
+    static StackSignature of(CompoundRoot root, boolean allowStaticMethodAccess) {
+        Class[] classes = new Class[root.size()];
+        for (int i = 0; i < classes.length; i++) {
+            Object o = root.get(i);
+            classes[i] = (o == null) ? null : o.getClass();
+        }
+
+        return share(new StackSignature(classes, allowStaticMethodAccess));
+    }
+
+    private static StackSignature share(StackSignature signature) {
+        StackSignature shared = signatures.get(signature);
+        if (shared == null) {
+            shared = signatures.putIfAbsent(signature, signature);
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the shared signature of a stack of this shape with an object of the given class pushed on top.
+     *
+     * @param clazz the class of the pushed object, or <tt>null</tt> if it is <tt>null</tt>
+     */
+    StackSignature push(Class clazz) {
+        Object key = (clazz == null) ? NULL_CLASS : clazz;
+        StackSignature signature = pushed.get(key);
+        if (signature == null) {
+            Class[] grown = new Class[classes.length + 1];
+            grown[0] = clazz;
+            System.arraycopy(classes, 0, grown, 1, classes.length);
+            signature = share(new StackSignature(grown, allowStaticMethodAccess));
+            if (pushed.size() < MAX_PUSHED) {
+                pushed.put(key, signature);
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Returns the signature to use for looking up the given property, or <tt>null</tt> if the member
+     * access in effect could give another answer than the one cached for this stack shape.
+     */
+    static StackSignature forLookup(OgnlContext context, CompoundRoot root, String name) {
+        if (!(context.getMemberAccess() instanceof SecurityMemberAccess)) {
+            return null;
+        }
+
+        // accept and exclude patterns only ever depend on the property name
+        SecurityMemberAccess memberAccess = (SecurityMemberAccess) context.getMemberAccess();
+        if (!memberAccess.isAcceptableProperty(name)) {
+            return null;
+        }
+
+        return root.getSignature(memberAccess.getAllowStaticMethodAccess());
+    }
+
+    /**
+     * Returns where the property is read from on stacks of this shape, or <tt>null</tt> if OGNL failed
+     * to tell and the stack has to be walked as usual.
+     */
+    Getter getGetter(OgnlContext context, CompoundRoot root, String name) {
+        Getter getter = getters.get(name);
+        if (getter == null) {
+            try {
+                getter = getters.putIfAbsent(name, resolveGetter(context, root, name));
+            } catch (OgnlException e) {
+                return null;
+            }
+        }
+        return getter;
+    }
+
+    /**
+     * Returns where the property is written to on stacks of this shape, or <tt>null</tt> if OGNL failed
+     * to tell and the stack has to be walked as usual.
+     */
+    Setter getSetter(OgnlContext context, CompoundRoot root, String name) {
+        Setter setter = setters.get(name);
+        if (setter == null) {
+            try {
+                setter = setters.putIfAbsent(name, resolveSetter(context, root, name));
+            } catch (OgnlException e) {
+                return null;
+            }
+        }
+        return setter;
+    }
+
+    private Getter resolveGetter(OgnlContext context, CompoundRoot root, String name) throws OgnlException {
+        int[] maps = NO_INDEXES;
+        for (int i = 0; i < classes.length; i++) {
+            Object o = root.get(i);
+            if (o == null) {
+                continue;
+            }
+
+            boolean hasGetProperty;
+            try {
+                hasGetProperty = OgnlRuntime.hasGetProperty(context, o, name);
+            } catch (IntrospectionException e) {
+                // skipped, just as the accessor does
+                continue;
+            }
+
+            if (hasGetProperty) {
+                return new Getter(i, maps);
+            } else if (o instanceof Map) {
+                int[] grown = new int[maps.length + 1];
+                System.arraycopy(maps, 0, grown, 0, maps.length);
+                grown[maps.length] = i;
+                maps = grown;
+            }
+        }
+        return new Getter(-1, maps);
+    }
+
+    private Setter resolveSetter(OgnlContext context, CompoundRoot root, String name) throws OgnlException {
+        for (int i = 0; i < classes.length; i++) {
+            Object o = root.get(i);
+            if (o == null) {
+                continue;
+            }
+
+            try {
+                if (OgnlRuntime.hasSetProperty(context, o, name)) {
+                    return new Setter(i, false);
+                } else if (o instanceof Map) {
+                    return new Setter(i, true);
+                }
+            } catch (IntrospectionException e) {
+                // skipped, just as the accessor does
+            }
+        }
+        return new Setter(-1, false);
+    }
+
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StackSignature)) {
+            return false;
+        }
+
+        StackSignature other = (StackSignature) o;
+        return hashCode == other.hashCode
+                && allowStaticMethodAccess == other.allowStaticMethodAccess
+                && Arrays.equals(classes, other.classes);
+    }
+
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * Where a property is read from: the depth of the first object having it, or -1 if none does,
+     * and the Maps above that depth which may hold it as a key.
+     */
+    static final class Getter {
+        final int depth;
+        final int[] maps;
+
+        Getter(int depth, int[] maps) {
+            this.depth = depth;
+            this.maps = maps;
+        }
+    }
+
+    /**
+     * Where a property is written to: the depth of the first object having it, or of the first Map,
+     * or -1 if there is neither.
+     */
+    static final class Setter {
+        final int depth;
+        final boolean map;
+
+        Setter(int depth, boolean map) {
+            this.depth = depth;
+            this.map = map;
+        }
+    }
+}
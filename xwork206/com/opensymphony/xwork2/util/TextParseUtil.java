@@ -6,7 +6,9 @@ package com.opensymphony.xwork2.util;
 
 import com.opensymphony.xwork2.util.TextUtils;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 
@@ -23,6 +25,10 @@ public class TextParseUtil {
     
     private static final int MAX_RECURSION = 1;
 
+    private static final BoundedCache<TemplateKey, ParsedText> parsedTexts =
+            new BoundedCache<TemplateKey, ParsedText>(10000);
+    private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>();
+
     /**
      * Converts all instances of ${...} in <code>expression</code> to the value returned
      * by a call to {@link ValueStack#findValue(java.lang.String)}. If an item cannot
@@ -111,11 +117,31 @@ public class TextParseUtil {
      * @return Converted object from variable translation.
      */
     public static Object translateVariables(char open, String expression, ValueStack stack, Class asType, ParsedValueEvaluator evaluator, int maxLoopCount) {
-        // deal with the "pure" expressions first!
-        //expression = expression.trim();
-        Object result = expression;
-        int loopCount = 1;
-        int pos = 0;
+        return parse(open, expression).evaluate(stack, asType, evaluator, maxLoopCount);
+    }
+
+    /**
+     * Parses the variables out of an expression once, so that it can be translated any number of times.
+     * Parsed expressions are cached.
+     *
+     * @param open the character variables start with, followed by <code>{</code>
+     * @param expression an expression that hasn't yet been translated
+     * @return the parsed expression
+     */
+    public static ParsedText parse(char open, String expression) {
+        TemplateKey key = new TemplateKey(open, expression);
+        ParsedText parsed = parsedTexts.get(key);
+        if (parsed == null) {
+            parsed = parsedTexts.putIfAbsent(key, new ParsedText(open, expression));
+        }
+        return parsed;
+    }
+
+    /**
+     * Translates the variables of <code>expression</code> from <code>pos</code> on, the state a
+     * translation has reached being given by <code>result</code> and <code>loopCount</code>.
+     */
+    private static Object translate(char open, String expression, Object result, int pos, int loopCount, ValueStack stack, Class asType, ParsedValueEvaluator evaluator, int maxLoopCount) {
         while (true) {
             
             int start = expression.indexOf(open + "{", pos);
@@ -182,7 +208,194 @@ public class TextParseUtil {
             }
         }
 
-        return XWorkConverter.getInstance().convertValue(stack.getContext(), result, asType);
+        return result;
+    }
+
+    /**
+     * An expression split into the literal text and the variables found in it. Translating it against a value
+     * stack gives the same result as {@link TextParseUtil#translateVariables(char, String, ValueStack, Class, ParsedValueEvaluator, int)},
+     * but looks for the variables only once.
+     * <p/>
+     * A variable is normally followed by the text it was followed by in the expression. Where its value
+     * could be taken for the start of another variable, and when translating more than one level deep, the
+     * translation carries on over the translated text the way it always has.
+     */
+    public static final class ParsedText {
+        private final char open;
+        private final String expression;
+
+        /**
+         * Where each variable starts, at its <code>open</code> character, and where it ends, at its
+         * closing brace
+         */
+        private final int[] starts;
+        private final int[] ends;
+        private final String[] variables;
+
+        /**
+         * Whether a variable is left open at the end, which ends translation
+         */
+        private final boolean unbalanced;
+
+        ParsedText(char open, String expression) {
+            this.open = open;
+            this.expression = expression;
+
+            List<Integer> starts = new ArrayList<Integer>();
+            List<Integer> ends = new ArrayList<Integer>();
+            int length = expression.length();
+            int pos = 0;
+            boolean unbalanced = false;
+            while (true) {
+                int start = indexOfVariable(expression, pos);
+                if (start == -1) {
+                    break;
+                }
+                int x = start + 2;
+                int count = 1;
+                while (x < length && count != 0) {
+                    char c = expression.charAt(x++);
+                    if (c == '{') {
+                        count++;
+                    } else if (c == '}') {
+                        count--;
+                    }
+                }
+                if (count != 0) {
+                    unbalanced = true;
+                    break;
+                }
+                starts.add(new Integer(start));
+                ends.add(new Integer(x - 1));
+                pos = x;
+            }
+
+            this.starts = new int[starts.size()];
+            this.ends = new int[starts.size()];
+            this.variables = new String[starts.size()];
+            for (int i = 0; i < this.starts.length; i++) {
+                this.starts[i] = starts.get(i).intValue();
+                this.ends[i] = ends.get(i).intValue();
+                this.variables[i] = expression.substring(this.starts[i] + 2, this.ends[i]);
+            }
+            this.unbalanced = unbalanced;
+        }
+
+        private int indexOfVariable(String text, int from) {
+            for (int i = text.indexOf(open, from); i != -1; i = text.indexOf(open, i + 1)) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == '{') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @see TextParseUtil#translateVariables(String, ValueStack)
+         */
+        public String evaluate(ValueStack stack) {
+            return evaluate(stack, String.class, null, MAX_RECURSION).toString();
+        }
+
+        /**
+         * @see TextParseUtil#translateVariables(char, String, ValueStack, Class, ParsedValueEvaluator, int)
+         */
+        public Object evaluate(ValueStack stack, Class asType, ParsedValueEvaluator evaluator, int maxLoopCount) {
+            Object result = (maxLoopCount < 1 || variables.length == 0) ? expression
+                    : translate(stack, asType, evaluator, maxLoopCount);
+
+            if (result != null && result.getClass() == asType) {
+                return result;
+            }
+            return XWorkConverter.getInstance().convertValue(stack.getContext(), result, asType);
+        }
+
+        private Object translate(ValueStack stack, Class asType, ParsedValueEvaluator evaluator, int maxLoopCount) {
+            StringBuilder sb = buffers.get();
+            if (sb == null) {
+                sb = new StringBuilder(expression.length() + 32);
+            } else {
+                // a variable may translate other expressions while this one holds the buffer
+                buffers.set(null);
+            }
+
+            try {
+                Object result = expression;
+                int pos = 0;
+                int rawPos = 0;
+                for (int i = 0; i < variables.length; i++) {
+                    sb.append(expression, rawPos, starts[i]);
+                    int left = sb.length();
+                    rawPos = ends[i] + 1;
+
+                    Object o = stack.findValue(variables[i], asType);
+                    if (evaluator != null) {
+                        o = evaluator.evaluate(o);
+                    }
+
+                    String middle = null;
+                    if (o != null) {
+                        middle = o.toString();
+                        sb.append(middle);
+                    }
+                    int middleLength = (middle != null) ? middle.length() : 0;
+                    boolean rightSet = rawPos < expression.length();
+
+                    pos = (left > 0 ? left - 1 : 0) + (middleLength > 0 ? middleLength - 1 : 0) + 1;
+                    pos = Math.max(pos, 1);
+
+                    // the text is searched for the next variable from pos, which normally is where the
+                    // rest of the expression starts
+                    int boundary = left + middleLength;
+                    boolean rescan = (pos < boundary && middle.charAt(middleLength - 1) == open
+                                    && rightSet && expression.charAt(rawPos) == '{')
+                            || (pos > boundary && expression.startsWith(open + "{", rawPos));
+
+                    if (rescan || (i == variables.length - 1)) {
+                        boolean typed = (left == 0 && o != null && !rightSet);
+                        sb.append(expression, rawPos, expression.length());
+                        String translated = sb.toString();
+                        result = typed ? o : translated;
+
+                        if (rescan || (!unbalanced && maxLoopCount > 1)) {
+                            result = TextParseUtil.translate(open, translated, result, pos, 1, stack, asType, evaluator, maxLoopCount);
+                        }
+                        break;
+                    }
+                }
+                return result;
+            } finally {
+                sb.setLength(0);
+                if (sb.capacity() <= 4096) {
+                    buffers.set(sb);
+                }
+            }
+        }
+    }
+
+    /**
+     * Key of a parsed expression.
+     */
+    private static final class TemplateKey {
+        private final char open;
+        private final String expression;
+
+        TemplateKey(char open, String expression) {
+            this.open = open;
+            this.expression = expression;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof TemplateKey)) {
+                return false;
+            }
+            TemplateKey other = (TemplateKey) obj;
+            return open == other.open && expression.equals(other.expression);
+        }
+
+        public int hashCode() {
+            return 31 * expression.hashCode() + open;
+        }
     }
 
     /**
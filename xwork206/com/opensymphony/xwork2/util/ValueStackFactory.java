@@ -21,5 +21,26 @@ public abstract class ValueStackFactory {
     public abstract ValueStack createValueStack();
     
     public abstract ValueStack createValueStack(ValueStack stack);
+
+    /**
+     * Gets a stack holding the objects of the given one, for the calling thread to use until it hands
+     * it back through {@link #releaseValueStack(ValueStack)}. The stack must not be kept or shared
+     * after that. Unless overridden this simply creates a new stack.
+     *
+     * @param stack the stack to copy the objects of
+     * @return a stack only the calling thread uses until it is released
+     */
+    public ValueStack borrowValueStack(ValueStack stack) {
+        return createValueStack(stack);
+    }
+
+    /**
+     * Hands back a stack obtained from {@link #borrowValueStack(ValueStack)}. Does nothing unless
+     * overridden.
+     *
+     * @param stack the borrowed stack
+     */
+    public void releaseValueStack(ValueStack stack) {
+    }
     
 }
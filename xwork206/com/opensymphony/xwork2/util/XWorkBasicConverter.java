@@ -10,6 +10,8 @@ import java.lang.reflect.Member;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.ParsePosition;
@@ -19,11 +21,13 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TimeZone;
 import java.util.TreeSet;
 
 import ognl.DefaultTypeConverter;
@@ -32,6 +36,7 @@ import ognl.TypeConverter;
 
 import com.opensymphony.xwork2.ActionContext;
 import com.opensymphony.xwork2.XWorkException;
+import com.opensymphony.xwork2.inject.Inject;
 
 
 /**
@@ -64,6 +69,69 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
 
     private static final String MILLISECOND_FORMAT = ".SSS";
 
+    // the kinds of date formats cached per locale
+    private static final int DATE = 0;
+    private static final int TIME = 1;
+    private static final int DATE_TIME_SHORT = 2;
+    private static final int DATE_TIME_MEDIUM = 3;
+    private static final int DATE_TIME_LONG = 4;
+    private static final int TIMESTAMP = 5;
+    private static final int TIMESTAMP_DEFAULT_SYMBOLS = 6;
+    private static final int RFC3339 = 7;
+    private static final int DATE_FORMAT_KINDS = 8;
+
+    /**
+     * The most locales a thread keeps date formats for
+     */
+    private static final int DATE_FORMAT_LOCALES = 4;
+
+    /**
+     * The date formats of the current thread by locale and kind, as date formats are not thread-safe. Only the
+     * locales the thread used most recently are kept, since locales come from requests.
+     */
+    private static final ThreadLocal<Map<Locale, DateFormat[]>> dateFormats = new ThreadLocal<Map<Locale, DateFormat[]>>() {
+        protected Map<Locale, DateFormat[]> initialValue() {
+            return new LinkedHashMap<Locale, DateFormat[]>(DATE_FORMAT_LOCALES * 2, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                protected boolean removeEldestEntry(Map.Entry<Locale, DateFormat[]> eldest) {
+                    return size() > DATE_FORMAT_LOCALES;
+                }
+            };
+        }
+    };
+
+    /**
+     * The symbols of the default number format of the locales seen most recently. Locales come from requests,
+     * so the cache is bounded.
+     */
+    private static final BoundedCache<Locale, NumberSymbols> numberSymbols = new BoundedCache<Locale, NumberSymbols>(256);
+
+    private static volatile int maxElements = -1;
+
+    /**
+     * Sets the maximum number of values converted into a single array or collection, and the highest
+     * index up to which lists are grown. A negative value means no limit.
+     */
+    @Inject(value = "conversion.maxElements", required = false)
+    public static void setMaxElements(String max) {
+        maxElements = Integer.parseInt(max);
+    }
+
+    static int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * @throws XWorkException if more than {@link #getMaxElements()} values would be converted
+     */
+    static void checkElementCount(int count) {
+        int max = maxElements;
+        if (max >= 0 && count > max) {
+            throw new XWorkException("Cannot convert " + count + " values, at most " + max + " are allowed");
+        }
+    }
+
     public Object convertValue(Map context, Object o, Member member, String s, Object value, Class toType) {
         Object result = null;
 
@@ -192,11 +260,16 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
 
             if (value.getClass().isArray()) {
                 int length = Array.getLength(value);
+                checkElementCount(length);
                 result = Array.newInstance(componentType, length);
 
-                for (int i = 0; i < length; i++) {
-                    Object valueItem = Array.get(value, i);
-                    Array.set(result, i, converter.convertValue(context, o, member, s, valueItem, componentType));
+                if (value instanceof Object[] && isBulkConvertible(converter, componentType)) {
+                    doConvertToIntegers(context, o, member, s, (Object[]) value, result, converter, componentType);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        Object valueItem = Array.get(value, i);
+                        Array.set(result, i, converter.convertValue(context, o, member, s, valueItem, componentType));
+                    }
                 }
             } else {
                 result = Array.newInstance(componentType, 1);
@@ -207,6 +280,90 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         return result;
     }
 
+    /**
+     * Tells whether the elements of an array or collection of the given type would be converted by this
+     * converter, so that {@link #doConvertToIntegers} may parse them itself instead of dispatching every
+     * element through the type converter.
+     */
+    private boolean isBulkConvertible(TypeConverter converter, Class elementType) {
+        if (elementType != int.class && elementType != long.class
+                && elementType != Integer.class && elementType != Long.class) {
+            return false;
+        }
+        if (!(converter instanceof XWorkConverter)) {
+            return false;
+        }
+
+        XWorkConverter xworkConverter = (XWorkConverter) converter;
+        return xworkConverter.defaultTypeConverter == this && xworkConverter.lookup(elementType) == null;
+    }
+
+    /**
+     * Converts the values into an int, long, Integer or Long array, or into a collection of these, in a
+     * single loop. Plain decimal values are parsed directly, which gives the same result as the locale's
+     * number format; everything else is handed to the type converter as usual.
+     *
+     * @param result the array to fill, or the collection to add to
+     */
+    private void doConvertToIntegers(Map context, Object o, Member member, String s, Object[] values,
+                                     Object result, TypeConverter converter, Class elementType) {
+        boolean plainLocale = getNumberSymbols(getLocale(context)).plain;
+        boolean isLong = (elementType == long.class || elementType == Long.class);
+        int maxDigits = isLong ? 18 : 9;
+        Collection collection = (result instanceof Collection) ? (Collection) result : null;
+
+        for (int i = 0; i < values.length; i++) {
+            Object valueItem = values[i];
+            Object converted;
+
+            if (plainLocale && valueItem instanceof String && isPlainInteger((String) valueItem, maxDigits)) {
+                String str = (String) valueItem;
+                if (elementType == int.class && collection == null) {
+                    ((int[]) result)[i] = Integer.parseInt(str);
+                    continue;
+                } else if (elementType == long.class && collection == null) {
+                    ((long[]) result)[i] = Long.parseLong(str);
+                    continue;
+                }
+                converted = isLong ? (Object) new Long(Long.parseLong(str)) : new Integer(Integer.parseInt(str));
+            } else {
+                converted = converter.convertValue(context, o, member, s, valueItem, elementType);
+            }
+
+            if (collection != null) {
+                collection.add(converted);
+            } else {
+                Array.set(result, i, converted);
+            }
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the value is an optional '-' followed by one to <tt>maxDigits</tt> ASCII digits
+     */
+    private static boolean isPlainInteger(String value, int maxDigits) {
+        int length = value.length();
+        int start = (length > 0 && value.charAt(0) == '-') ? 1 : 0;
+        if (length == start || length - start > maxDigits) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static NumberSymbols getNumberSymbols(Locale locale) {
+        NumberSymbols symbols = numberSymbols.get(locale);
+        if (symbols == null) {
+            symbols = numberSymbols.putIfAbsent(locale, new NumberSymbols(NumberFormat.getInstance(locale)));
+        }
+        return symbols;
+    }
+
     private Object doConvertToCharacter(Object value) {
         if (value instanceof String) {
             String cStr = (String) value;
@@ -259,14 +416,20 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
             result = (Collection) value;
         } else if (value.getClass().isArray()) {
             Object[] objArray = (Object[]) value;
+            checkElementCount(objArray.length);
             TypeConverter converter = Ognl.getTypeConverter(context);
             result = createCollection(o, prop, toType, memberType, objArray.length);
 
-            for (int i = 0; i < objArray.length; i++) {
-                result.add(converter.convertValue(context, o, member, prop, objArray[i], memberType));
+            if (isBulkConvertible(converter, memberType)) {
+                doConvertToIntegers(context, o, member, prop, objArray, result, converter, memberType);
+            } else {
+                for (int i = 0; i < objArray.length; i++) {
+                    result.add(converter.convertValue(context, o, member, prop, objArray[i], memberType));
+                }
             }
         } else if (Collection.class.isAssignableFrom(value.getClass())) {
             Collection col = (Collection) value;
+            checkElementCount(col.size());
             TypeConverter converter = Ognl.getTypeConverter(context);
             result = createCollection(o, prop, toType, memberType, col.size());
 
@@ -290,51 +453,22 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
 
             DateFormat df = null;
             if (java.sql.Time.class == toType) {
-                df = DateFormat.getTimeInstance(DateFormat.MEDIUM, locale);
+                df = getDateFormat(locale, TIME);
             } else if (java.sql.Timestamp.class == toType) {
-                Date check = null;
-                SimpleDateFormat dtfmt = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT,
-                        DateFormat.MEDIUM,
-                        locale);
-                SimpleDateFormat fullfmt = new SimpleDateFormat(dtfmt.toPattern() + MILLISECOND_FORMAT,
-                        locale);
-
-                SimpleDateFormat dfmt = (SimpleDateFormat) DateFormat.getDateInstance(DateFormat.SHORT,
-                        locale);
-
-                SimpleDateFormat[] fmts = {fullfmt, dtfmt, dfmt};
-                for (int i = 0; i < fmts.length; i++) {
-                    try {
-                        check = fmts[i].parse(sa);
-                        df = fmts[i];
-                        if (check != null) {
-                            break;
-                        }
-                    } catch (ParseException ignore) {
-                    }
-                }
+                df = findDateFormat(sa, new DateFormat[]{
+                        getDateFormat(locale, TIMESTAMP),
+                        getDateFormat(locale, DATE_TIME_MEDIUM),
+                        getDateFormat(locale, DATE)});
             } else if (java.util.Date.class == toType) {
-                Date check = null;
-                SimpleDateFormat d1 = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.LONG, locale);
-                SimpleDateFormat d2 = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM, locale);
-                SimpleDateFormat d3 = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
-                SimpleDateFormat rfc3399 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
-                SimpleDateFormat[] dfs = {d1, d2, d3, rfc3399}; //added RFC 3339 date format (XW-473)
-                for (int i = 0; i < dfs.length; i++) {
-                    try {
-                        check = dfs[i].parse(sa);
-                        df = dfs[i];
-                        if (check != null) {
-                            break;
-                        }
-                    }
-                    catch (ParseException ignore) {
-                    }
-                }
+                df = findDateFormat(sa, new DateFormat[]{
+                        getDateFormat(locale, DATE_TIME_LONG),
+                        getDateFormat(locale, DATE_TIME_MEDIUM),
+                        getDateFormat(locale, DATE_TIME_SHORT),
+                        getDateFormat(locale, RFC3339)}); //added RFC 3339 date format (XW-473)
             }
             //final fallback for dates without time
             if (df == null) {
-                df = DateFormat.getDateInstance(DateFormat.SHORT, locale);
+                df = getDateFormat(locale, DATE);
             }
             try {
                 df.setLenient(false); // let's use strict parsing (XW-341)
@@ -356,6 +490,76 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         return result;
     }
 
+    /**
+     * Returns the first of the formats able to parse the start of the value, or <tt>null</tt> if none is.
+     * The formats are tried leniently and without throwing, but in the same order and with the same
+     * outcome as calling {@link DateFormat#parse(String)} on each in turn.
+     */
+    private DateFormat findDateFormat(String value, DateFormat[] formats) {
+        ParsePosition parsePos = new ParsePosition(0);
+        for (int i = 0; i < formats.length; i++) {
+            parsePos.setIndex(0);
+            parsePos.setErrorIndex(-1);
+            formats[i].setLenient(true);
+            formats[i].parse(value, parsePos);
+            if (parsePos.getIndex() != 0) {
+                return formats[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the current thread's date format of the given kind for the locale, creating it on first use.
+     * The format is set to the current default time zone, just like a newly created one would be.
+     */
+    private DateFormat getDateFormat(Locale locale, int kind) {
+        Map<Locale, DateFormat[]> formats = dateFormats.get();
+        DateFormat[] byKind = formats.get(locale);
+        if (byKind == null) {
+            byKind = new DateFormat[DATE_FORMAT_KINDS];
+            formats.put(locale, byKind);
+        }
+
+        DateFormat df = byKind[kind];
+        if (df == null) {
+            df = createDateFormat(locale, kind);
+            byKind[kind] = df;
+        }
+        df.setTimeZone(TimeZone.getDefault());
+        return df;
+    }
+
+    private DateFormat createDateFormat(Locale locale, int kind) {
+        switch (kind) {
+            case DATE:
+                return DateFormat.getDateInstance(DateFormat.SHORT, locale);
+            case TIME:
+                return DateFormat.getTimeInstance(DateFormat.MEDIUM, locale);
+            case DATE_TIME_SHORT:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            case DATE_TIME_MEDIUM:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM, locale);
+            case DATE_TIME_LONG:
+                return DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.LONG, locale);
+            case TIMESTAMP:
+                return new SimpleDateFormat(getTimestampPattern(locale), locale);
+            case TIMESTAMP_DEFAULT_SYMBOLS:
+                return new SimpleDateFormat(getTimestampPattern(locale));
+            case RFC3339:
+                return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            default:
+                throw new IllegalArgumentException("Unknown date format kind " + kind);
+        }
+    }
+
+    private String getTimestampPattern(Locale locale) {
+        SimpleDateFormat dtfmt = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT,
+                DateFormat.MEDIUM,
+                locale);
+        return dtfmt.toPattern() + MILLISECOND_FORMAT;
+    }
+
     private Object doConvertToNumber(Map context, Object value, Class toType) {
         if (value instanceof String) {
             if (toType == BigDecimal.class) {
@@ -367,20 +571,25 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
                 if (!toType.isPrimitive() && (stringValue == null || stringValue.length() == 0)) {
                     return null;
                 }
-                NumberFormat numFormat = NumberFormat.getInstance(getLocale(context));
-                ParsePosition parsePos = new ParsePosition(0);
-                if (isIntegerType(toType)) {
-                    numFormat.setParseIntegerOnly(true);
-                }
-                numFormat.setGroupingUsed(true);
-                Number number = numFormat.parse(stringValue, parsePos);
+                Locale locale = getLocale(context);
+                boolean integerOnly = isIntegerType(toType);
+                Number number = parsePlainNumber(stringValue, getNumberSymbols(locale), integerOnly);
+
+                if (number == null) {
+                    NumberFormat numFormat = NumberFormat.getInstance(locale);
+                    ParsePosition parsePos = new ParsePosition(0);
+                    if (integerOnly) {
+                        numFormat.setParseIntegerOnly(true);
+                    }
+                    numFormat.setGroupingUsed(true);
+                    number = numFormat.parse(stringValue, parsePos);
 
-                if (parsePos.getIndex() != stringValue.length()) {
-                    throw new XWorkException("Unparseable number: \"" + stringValue + "\" at position "
-                            + parsePos.getIndex());
-                } else {
-                    value = super.convertValue(context, number, toType);
+                    if (parsePos.getIndex() != stringValue.length()) {
+                        throw new XWorkException("Unparseable number: \"" + stringValue + "\" at position "
+                                + parsePos.getIndex());
+                    }
                 }
+                value = super.convertValue(context, number, toType);
             }
         } else if (value instanceof Object[]) {
             Object[] objArray = (Object[]) value;
@@ -394,6 +603,83 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         return super.convertValue(context, value, toType);
     }
 
+    /**
+     * Parses a plain number: an optional '-', then digits with single grouping separators between them
+     * and, unless an integer is wanted, a decimal separator followed by more digits. Such numbers come
+     * out exactly as the locale's number format would parse them, as a Long if integral and a Double
+     * otherwise. Anything else, including integers of more than 18 digits, is left to the number format.
+     *
+     * @return the number, or <tt>null</tt> if the value is not a plain number in this locale
+     */
+    private static Number parsePlainNumber(String value, NumberSymbols symbols, boolean integerOnly) {
+        if (!symbols.plain) {
+            return null;
+        }
+
+        int length = value.length();
+        boolean negative = (length > 0 && value.charAt(0) == '-');
+        long integer = 0;
+        int integerDigits = 0;
+        int fraction = -1;
+        boolean grouped = false;
+
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fraction < 0) {
+                    if (++integerDigits > 18) {
+                        return null;
+                    }
+                    integer = integer * 10 + (c - '0');
+                }
+            } else if (fraction < 0 && isDigitAround(value, i)) {
+                if (c == symbols.groupingSeparator) {
+                    grouped = true;
+                } else if (c == symbols.decimalSeparator && !integerOnly) {
+                    fraction = i;
+                } else {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        if (integerDigits == 0) {
+            return null;
+        }
+        if (fraction < 0) {
+            if (negative) {
+                // the number format keeps the sign of zero
+                return (integer == 0) ? (Number) new Double(-0.0d) : new Long(-integer);
+            }
+            return new Long(integer);
+        }
+
+        if (!grouped && symbols.decimalSeparator == '.') {
+            return new Double(Double.parseDouble(value));
+        }
+        StringBuffer normalized = new StringBuffer(length);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (i == fraction) {
+                normalized.append('.');
+            } else if (c != symbols.groupingSeparator) {
+                normalized.append(c);
+            }
+        }
+        return new Double(Double.parseDouble(normalized.toString()));
+    }
+
+    private static boolean isDigitAround(String value, int index) {
+        if (index == 0 || index + 1 == value.length()) {
+            return false;
+        }
+        char before = value.charAt(index - 1);
+        char after = value.charAt(index + 1);
+        return before >= '0' && before <= '9' && after >= '0' && after <= '9';
+    }
+
     protected boolean isIntegerType(Class type) {
         if (double.class == type || float.class == type || Double.class == type || Float.class == type
                 || char.class == type || Character.class == type) {
@@ -468,14 +754,11 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
         } else if (value instanceof Date) {
             DateFormat df = null;
             if (value instanceof java.sql.Time) {
-                df = DateFormat.getTimeInstance(DateFormat.MEDIUM, getLocale(context));
+                df = getDateFormat(getLocale(context), TIME);
             } else if (value instanceof java.sql.Timestamp) {
-                SimpleDateFormat dfmt = (SimpleDateFormat) DateFormat.getDateTimeInstance(DateFormat.SHORT,
-                        DateFormat.MEDIUM,
-                        getLocale(context));
-                df = new SimpleDateFormat(dfmt.toPattern() + MILLISECOND_FORMAT);
+                df = getDateFormat(getLocale(context), TIMESTAMP_DEFAULT_SYMBOLS);
             } else {
-                df = DateFormat.getDateInstance(DateFormat.SHORT, getLocale(context));
+                df = getDateFormat(getLocale(context), DATE);
             }
             result = df.format(value);
         } else if (value instanceof String[]) {
@@ -484,4 +767,33 @@ public class XWorkBasicConverter extends DefaultTypeConverter {
 
         return result;
     }
+
+    /**
+     * What a locale's default number format needs to be told apart from a plain parse
+     */
+    private static final class NumberSymbols {
+        /**
+         * Whether negative numbers are prefixed with '-' and positive ones carry no affixes
+         */
+        final boolean plain;
+        final char groupingSeparator;
+        final char decimalSeparator;
+
+        NumberSymbols(NumberFormat numFormat) {
+            if (numFormat instanceof DecimalFormat) {
+                DecimalFormat decimalFormat = (DecimalFormat) numFormat;
+                DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+                plain = "-".equals(decimalFormat.getNegativePrefix())
+                        && decimalFormat.getNegativeSuffix().length() == 0
+                        && decimalFormat.getPositivePrefix().length() == 0
+                        && decimalFormat.getPositiveSuffix().length() == 0;
+                groupingSeparator = symbols.getGroupingSeparator();
+                decimalSeparator = symbols.getDecimalSeparator();
+            } else {
+                plain = false;
+                groupingSeparator = 0;
+                decimalSeparator = 0;
+            }
+        }
+    }
 }
@@ -9,11 +9,13 @@ import java.io.InputStream;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import ognl.DefaultTypeConverter;
 import ognl.OgnlRuntime;
@@ -26,6 +28,7 @@ import com.opensymphony.xwork2.inject.Inject;
 import com.opensymphony.xwork2.util.FileManager;
 import com.opensymphony.xwork2.ActionContext;
 import com.opensymphony.xwork2.ObjectFactory;
+import com.opensymphony.xwork2.TextProvider;
 import com.opensymphony.xwork2.XWorkMessages;
 import com.opensymphony.xwork2.conversion.annotations.Conversion;
 import com.opensymphony.xwork2.conversion.annotations.TypeConversion;
@@ -92,7 +95,8 @@ import com.opensymphony.xwork2.conversion.annotations.ConversionRule;
  *
  * <p/> By default, all conversion errors are reported using the generic i18n key <b>xwork.default.invalid.fieldvalue</b>,
  * which you can override (the default text is <i>Invalid field value for field "xxx"</i>, where xxx is the field name)
- * in your global i18n resource bundle.
+ * in your global i18n resource bundle. The message is given the type the value could not be converted to as a second
+ * argument, such as <i>java.lang.Integer</i>, if it is known.
  *
  * <p/>However, sometimes you may wish to override this message on a per-field basis. You can do this by adding an i18n
  * key associated with just your action (Action.properties) using the pattern <b>invalid.fieldvalue.xxx</b>, where xxx
@@ -167,12 +171,35 @@ public class XWorkConverter extends DefaultTypeConverter {
      * </pre>
      */
     protected HashSet<String> unknownMappings = new HashSet<String>(); 	// non-action (eg. returned value)
+
+    /**
+     * The mappings of {@link #mappings} and {@link #noMapping} as {@link #getConverter(Class, String)} reads them
+     * without a lock, classes without mappings being mapped to {@link #NO_CONVERTERS}. The fields above are only
+     * read and written holding the lock of this converter.
+     */
+    private final Map<Class, Map<String, Object>> classMappings = new ConcurrentHashMap<Class, Map<String, Object>>();
+
+    /**
+     * The converter {@link #lookup(String)} resolved for a class name, or {@link #NO_CONVERTER} if there is none.
+     * Cleared whenever a converter is registered, since that may change how the class hierarchy resolves.
+     */
+    private final Map<String, Object> resolvedConverters = new ConcurrentHashMap<String, Object>();
+
+    /**
+     * The conversion mappings precomputed at build time, see {@link ConversionIndex}.
+     */
+    private final ConversionIndex conversionIndex;
+
+    private static final Map<String, Object> NO_CONVERTERS = Collections.emptyMap();
+    private static final Object NO_CONVERTER = new Object();
     
     protected TypeConverter defaultTypeConverter = new XWorkBasicConverter();
     protected ObjectTypeDeterminer objectTypeDeterminer = null;
 
 
     protected XWorkConverter() {
+        conversionIndex = ConversionIndex.load();
+
         try {
             // note: this file is deprecated
             loadConversionProperties("xwork-default-conversion.properties");
@@ -186,13 +213,40 @@ public class XWorkConverter extends DefaultTypeConverter {
     }
 
     public static String getConversionErrorMessage(String propertyName, ValueStack stack) {
+        ActionContext context = ActionContext.getContext();
+        Object conversionErrors = context.get(ActionContext.CONVERSION_ERRORS);
+        Class targetType = (conversionErrors instanceof ConversionErrors)
+                ? ((ConversionErrors) conversionErrors).getTargetType(propertyName) : null;
         String defaultMessage = LocalizedTextUtil.findDefaultText(XWorkMessages.DEFAULT_INVALID_FIELDVALUE,
-                ActionContext.getContext().getLocale(),
+                context.getLocale(),
                 new Object[]{
-                        propertyName
+                        propertyName, (targetType == null) ? null : targetType.getName()
                 });
-        String getTextExpression = "getText('" + CONVERSION_ERROR_PROPERTY_PREFIX + propertyName + "','" + defaultMessage + "')";
-        String message = (String) stack.findValue(getTextExpression);
+        String key = CONVERSION_ERROR_PROPERTY_PREFIX + propertyName;
+        String message = null;
+
+        for (Iterator iterator = stack.getRoot().iterator(); iterator.hasNext();) {
+            Object o = iterator.next();
+
+            if (o instanceof TextProvider) {
+                try {
+                    message = ((TextProvider) o).getText(key, defaultMessage);
+                } catch (RuntimeException e) {
+                    // fall back to the default message, as a failed lookup through the stack would
+                    LOG.debug("Unable to look up the conversion error message for " + propertyName, e);
+                    break;
+                }
+            } else if (o != null && OgnlRuntime.getMethods(o.getClass(), "getText", false) != null) {
+                // an object with a getText() of its own comes first, leave it to OGNL to pick the method
+                String getTextExpression = "getText('" + key + "','" + defaultMessage + "')";
+                message = (String) stack.findValue(getTextExpression);
+                break;
+            }
+
+            if (message != null) {
+                break;
+            }
+        }
 
         if (message == null) {
             message = defaultMessage;
@@ -308,7 +362,7 @@ public class XWorkConverter extends DefaultTypeConverter {
             try {
                 return tc.convertValue(context, target, member, property, value, toClass);
             } catch (Exception e) {
-                handleConversionException(context, property, value, target);
+                handleConversionException(context, property, value, target, toClass);
 
                 return OgnlRuntime.NoConversionPossible;
             }
@@ -320,7 +374,7 @@ public class XWorkConverter extends DefaultTypeConverter {
                     LOG.debug("falling back to default type converter ["+defaultTypeConverter+"]");
                 return defaultTypeConverter.convertValue(context, target, member, property, value, toClass);
             } catch (Exception e) {
-                handleConversionException(context, property, value, target);
+                handleConversionException(context, property, value, target, toClass);
 
                 return OgnlRuntime.NoConversionPossible;
             }
@@ -330,7 +384,7 @@ public class XWorkConverter extends DefaultTypeConverter {
                     LOG.debug("falling back to Ognl's default type conversion");
                 return super.convertValue(context, target, member, property, value, toClass);
             } catch (Exception e) {
-                handleConversionException(context, property, value, target);
+                handleConversionException(context, property, value, target, toClass);
 
                 return OgnlRuntime.NoConversionPossible;
             }
@@ -344,30 +398,46 @@ public class XWorkConverter extends DefaultTypeConverter {
      * @return a TypeConverter to handle the specified class or null if none can be found
      */
     public TypeConverter lookup(String className) {
-        if (unknownMappings.contains(className)) {
-            return null;
+        Object resolved = resolvedConverters.get(className);
+        if (resolved != null) {
+            return (resolved == NO_CONVERTER) ? null : (TypeConverter) resolved;
         }
 
-        TypeConverter result = (TypeConverter) defaultMappings.get(className);
+        // the resolved converters are only filled under the lock registerConverter clears them with, so a
+        // registration cannot be overwritten by what a lookup found before it
+        TypeConverter result;
+        synchronized (this) {
+            if (unknownMappings.contains(className)) {
+                resolvedConverters.put(className, NO_CONVERTER);
+                return null;
+            }
+
+            result = (TypeConverter) defaultMappings.get(className);
+            if (result != null) {
+                resolvedConverters.put(className, result);
+                return result;
+            }
+        }
 
         //Looks for super classes
-        if (result == null) {
-            Class clazz = null;
+        Class clazz = null;
 
-            try {
-                clazz = Thread.currentThread().getContextClassLoader().loadClass(className);
-            } catch (ClassNotFoundException cnfe) {
-            }
+        try {
+            clazz = Thread.currentThread().getContextClassLoader().loadClass(className);
+        } catch (ClassNotFoundException cnfe) {
+        }
 
+        synchronized (this) {
             result = lookupSuper(clazz);
 
             if (result != null) {
                 //Register now, the next lookup will be faster
-                registerConverter(className, result);
+                defaultMappings.put(className, result);
             } else {
                 // if it isn't found, never look again (also faster)
-                registerConverterNotFound(className);
+                unknownMappings.add(className);
             }
+            resolvedConverters.put(className, (result == null) ? NO_CONVERTER : result);
         }
 
         return result;
@@ -388,31 +458,53 @@ public class XWorkConverter extends DefaultTypeConverter {
             LOG.debug("Property: " + property);
             LOG.debug("Class: " + clazz.getName());
         }
-        synchronized (clazz) {
-            if ((property != null) && !noMapping.contains(clazz)) {
-                try {
-                    Map<String, Object> mapping = mappings.get(clazz);
+        if (property == null) {
+            return null;
+        }
 
-                    if (mapping == null) {
-                        mapping = buildConverterMapping(clazz);
-                    } else {
-                        mapping = conditionalReload(clazz, mapping);
-                    }
+        Map<String, Object> mapping = classMappings.get(clazz);
+        if (mapping == NO_CONVERTERS) {
+            return null;
+        }
 
-                    Object converter = mapping.get(property);
-                    if (LOG.isDebugEnabled() && converter == null) {
-                        LOG.debug("converter is null for property " + property + ". Mapping size: " + mapping.size());
-                        Iterator<String> iter = mapping.keySet().iterator();
-                        while (iter.hasNext()) {
-                            String next = iter.next();
-                            LOG.debug(next + ":" + mapping.get(next));
+        try {
+            if (mapping == null) {
+                // only building the mapping is serialized, reading it never is
+                synchronized (clazz) {
+                    mapping = classMappings.get(clazz);
+                    if (mapping == null) {
+                        synchronized (this) {
+                            mapping = noMapping.contains(clazz) ? NO_CONVERTERS : mappings.get(clazz);
+                        }
+                        if (mapping == null) {
+                            mapping = buildConverterMapping(clazz);
+                        } else {
+                            classMappings.put(clazz, mapping);
                         }
                     }
-                    return converter;
-                } catch (Throwable t) {
-                    noMapping.add(clazz);
+                }
+                if (mapping == NO_CONVERTERS) {
+                    return null;
+                }
+            } else {
+                mapping = conditionalReload(clazz, mapping);
+            }
+
+            Object converter = mapping.get(property);
+            if (LOG.isDebugEnabled() && converter == null) {
+                LOG.debug("converter is null for property " + property + ". Mapping size: " + mapping.size());
+                Iterator<String> iter = mapping.keySet().iterator();
+                while (iter.hasNext()) {
+                    String next = iter.next();
+                    LOG.debug(next + ":" + mapping.get(next));
                 }
             }
+            return converter;
+        } catch (Throwable t) {
+            synchronized (this) {
+                noMapping.add(clazz);
+            }
+            classMappings.put(clazz, NO_CONVERTERS);
         }
 
         return null;
@@ -420,30 +512,62 @@ public class XWorkConverter extends DefaultTypeConverter {
 
     protected void handleConversionException(Map context, String property, Object value, Object object) {
         if ((Boolean.TRUE.equals(context.get(REPORT_CONVERSION_ERRORS)))) {
-            String realProperty = property;
-            String fullName = (String) context.get(CONVERSION_PROPERTY_FULLNAME);
-
-            if (fullName != null) {
-                realProperty = fullName;
-            }
+            String realProperty = getErrorProperty(context, property);
 
             Map conversionErrors = (Map) context.get(ActionContext.CONVERSION_ERRORS);
 
             if (conversionErrors == null) {
-                conversionErrors = new HashMap();
+                conversionErrors = new ConversionErrors();
                 context.put(ActionContext.CONVERSION_ERRORS, conversionErrors);
             }
 
-            conversionErrors.put(realProperty, value);
+            if (conversionErrors instanceof ConversionErrors) {
+                ((ConversionErrors) conversionErrors).addError(realProperty, value, null);
+            } else {
+                conversionErrors.put(realProperty, value);
+            }
+        }
+    }
+
+    /**
+     * Records a conversion error through {@link #handleConversionException(Map, String, Object, Object)}, and
+     * the type the value could not be converted to along with the error it recorded.
+     *
+     * @param toClass the type the value could not be converted to, or <tt>null</tt> if not known
+     */
+    protected void handleConversionException(Map context, String property, Object value, Object object, Class toClass) {
+        handleConversionException(context, property, value, object);
+
+        if (toClass != null && (Boolean.TRUE.equals(context.get(REPORT_CONVERSION_ERRORS)))) {
+            Object conversionErrors = context.get(ActionContext.CONVERSION_ERRORS);
+            if (conversionErrors instanceof ConversionErrors) {
+                ((ConversionErrors) conversionErrors).setTargetType(getErrorProperty(context, property), toClass);
+            }
         }
     }
 
+    private String getErrorProperty(Map context, String property) {
+        String fullName = (String) context.get(CONVERSION_PROPERTY_FULLNAME);
+        return (fullName != null) ? fullName : property;
+    }
+
     public synchronized void registerConverter(String className, TypeConverter converter) {
         defaultMappings.put(className, converter);
+        resolvedConverters.clear();
     }
 
     public synchronized void registerConverterNotFound(String className) {
         unknownMappings.add(className);
+        resolvedConverters.put(className, NO_CONVERTER);
+    }
+
+    /**
+     * Adds a converter found while reading the configuration. Unlike {@link #registerConverter(String, TypeConverter)}
+     * it only drops what was resolved for that very class, as the configuration always has.
+     */
+    synchronized void addDefaultMapping(String className, TypeConverter converter) {
+        defaultMappings.put(className, converter);
+        resolvedConverters.remove(className);
     }
 
     private Object[] getClassProperty(Map context) {
@@ -583,7 +707,7 @@ public class XWorkConverter extends DefaultTypeConverter {
                     if (key != null) {
                         try {
                         	if (tc.type()  == ConversionType.APPLICATION) {
-                                defaultMappings.put(key, createTypeConverter(tc.converter()));
+                                addDefaultMapping(key, createTypeConverter(tc.converter()));
                             } else {
                                 if (tc.rule().toString().equals(ConversionRule.KEY_PROPERTY) || tc.rule().toString().equals(ConversionRule.CREATE_IF_NULL)) {
                                     mapping.put(key, tc.value());
@@ -658,7 +782,7 @@ public class XWorkConverter extends DefaultTypeConverter {
                     if (key != null) {
                         try {
                         	if (tc.type() == ConversionType.APPLICATION) {
-                                defaultMappings.put(key, createTypeConverter(tc.converter()));
+                                addDefaultMapping(key, createTypeConverter(tc.converter()));
                             } else {
                                 if (tc.rule().toString().equals(ConversionRule.KEY_PROPERTY)) {
                                     mapping.put(key, tc.value());
@@ -715,6 +839,31 @@ public class XWorkConverter extends DefaultTypeConverter {
      * @return the converter mappings
      */
     private Map<String, Object> buildConverterMapping(Class clazz) throws Exception {
+        Map<String, Object> mapping = null;
+        if (!FileManager.isReloadingConfigs()) {
+            mapping = conversionIndex.getMapping(clazz, this);
+        }
+        if (mapping == null) {
+            mapping = scanConverterMapping(clazz);
+        }
+
+        synchronized (this) {
+            if (mapping.size() > 0) {
+                mappings.put(clazz, mapping);
+            } else {
+                noMapping.add(clazz);
+            }
+        }
+        classMappings.put(clazz, (mapping.size() > 0) ? mapping : NO_CONVERTERS);
+
+        return mapping;
+    }
+
+    /**
+     * Collects the converter mappings of the class and its super classes and interfaces, see
+     * {@link #buildConverterMapping(Class)}.
+     */
+    Map<String, Object> scanConverterMapping(Class clazz) throws Exception {
         Map<String, Object> mapping = new HashMap<String, Object>();
 
         // check for conversion mapping associated with super classes and any implemented interfaces
@@ -734,12 +883,6 @@ public class XWorkConverter extends DefaultTypeConverter {
             curClazz = curClazz.getSuperclass();
         }
 
-        if (mapping.size() > 0) {
-            mappings.put(clazz, mapping);
-        } else {
-            noMapping.add(clazz);
-        }
-
         return mapping;
     }
 
@@ -779,7 +922,7 @@ public class XWorkConverter extends DefaultTypeConverter {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("\t"+key + ":" + entry.getValue()+" [treated as TypeConverter "+_typeConverter+"]");
                 }
-                defaultMappings.put(key, _typeConverter);
+                addDefaultMapping(key, _typeConverter);
             } catch (Exception e) {
                 LOG.error("Conversion registration error", e);
             }
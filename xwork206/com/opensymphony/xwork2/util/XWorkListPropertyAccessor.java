@@ -10,7 +10,9 @@ import com.opensymphony.xwork2.XWorkException;
 import ognl.ListPropertyAccessor;
 import ognl.OgnlException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -57,11 +59,9 @@ public class XWorkListPropertyAccessor extends ListPropertyAccessor {
             if (listSize <= index) {
                 Object result = null;
 
-                for (int i = listSize; i < index; i++) {
-
-                    list.add(null);
-
-                }
+                // the element added after the padding counts against the limit, as it does in setProperty
+                checkListSize(index + 1);
+                growList(list, index);
                 try {
                     list.add(index, result = ObjectFactory.getObjectFactory().buildBean(beanClass, context));
                 } catch (Exception exc) {
@@ -120,15 +120,32 @@ public class XWorkListPropertyAccessor extends ListPropertyAccessor {
             int listSize = list.size();
             int count = ((Number) name).intValue();
             if (count >= listSize) {
-                for (int i = listSize; i <= count; i++) {
-                    list.add(null);
-                }
+                growList(list, count + 1);
             }
         }
 
         super.setProperty(context, target, name, realValue);
     }
 
+    /**
+     * Pads the list with nulls up to the given size in one step, refusing to grow it beyond
+     * the limit set for conversions.
+     */
+    private void growList(List list, int size) throws OgnlException {
+        checkListSize(size);
+        if (list instanceof ArrayList) {
+            ((ArrayList) list).ensureCapacity(size);
+        }
+        list.addAll(Collections.nCopies(size - list.size(), null));
+    }
+
+    private void checkListSize(int size) throws OgnlException {
+        int max = XWorkBasicConverter.getMaxElements();
+        if (max >= 0 && size > max) {
+            throw new OgnlException("Cannot grow list to " + size + " elements, at most " + max + " are allowed");
+        }
+    }
+
     private Object getRealValue(Map context, Object value, Class convertToClass) {
         if (value == null || convertToClass == null) {
             return value;